@@ -92,12 +92,61 @@ public class ApplicationConfiguration {
         this.representationResolvers = representationResolvers;
     }
 
+    private TextResolution textResolution = new TextResolution();
+
+    public TextResolution getTextResolution() {
+        return textResolution;
+    }
+
+    public void setTextResolution(TextResolution textResolution) {
+        this.textResolution = textResolution;
+    }
+
+    private JobDispatch jobDispatch = new JobDispatch();
+
+    public JobDispatch getJobDispatch() {
+        return jobDispatch;
+    }
+
+    public void setJobDispatch(JobDispatch jobDispatch) {
+        this.jobDispatch = jobDispatch;
+    }
+
+    private EvidenceRetrieval evidence = new EvidenceRetrieval();
+
+    public EvidenceRetrieval getEvidence() {
+        return evidence;
+    }
+
+    public void setEvidence(EvidenceRetrieval evidence) {
+        this.evidence = evidence;
+    }
+
     public static class Persistence {
         private String url;
         private String user;
         private String pwd;
         private String schema;
         private String driverClass;
+        // JDBC fetch size hint for large streamed result sets (e.g. cohort retrieval)
+        private int fetchSize = 1000;
+        // Page size used for paginated cohort retrieval when the client does not specify one
+        private int defaultPageSize = 500;
+        // Upper bound on client-requested page sizes
+        private int maxPageSize = 5000;
+        // Whether multi-UID lookups use IN list queries. Disable only for drivers that cannot handle them, in which
+        // case one query is issued per UID
+        private boolean bulkLookups = true;
+        // Maximum number of UIDs per IN list, further capped by the limits of the detected SQL dialect
+        private int inListChunkSize = 500;
+        // Cache of job -> owning project, which never changes once a job is created
+        private CacheConfig jobProjectCache = new CacheConfig(100000, 0);
+        // Cache of (project, user) -> role grants. TTL bounds staleness of grants changed by other middleware instances
+        private CacheConfig authorizationCache = new CacheConfig(10000, 60);
+        // Cache of PROJECT_CRITERION row -> parsed criterion. Criterion revisions are insert-only so no TTL is needed
+        private CacheConfig criterionCache = new CacheConfig(1000, 0);
+        private SchemaMigration schemaMigration = new SchemaMigration();
+        private PoolConfig pool = new PoolConfig();
 
         public String getUrl() {
             return url;
@@ -138,6 +187,291 @@ public class ApplicationConfiguration {
         public void setDriverClass(String driverClass) {
             this.driverClass = driverClass;
         }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public int getDefaultPageSize() {
+            return defaultPageSize;
+        }
+
+        public void setDefaultPageSize(int defaultPageSize) {
+            this.defaultPageSize = defaultPageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public boolean isBulkLookups() {
+            return bulkLookups;
+        }
+
+        public void setBulkLookups(boolean bulkLookups) {
+            this.bulkLookups = bulkLookups;
+        }
+
+        public int getInListChunkSize() {
+            return inListChunkSize;
+        }
+
+        public void setInListChunkSize(int inListChunkSize) {
+            this.inListChunkSize = inListChunkSize;
+        }
+
+        public CacheConfig getJobProjectCache() {
+            return jobProjectCache;
+        }
+
+        public void setJobProjectCache(CacheConfig jobProjectCache) {
+            this.jobProjectCache = jobProjectCache;
+        }
+
+        public CacheConfig getAuthorizationCache() {
+            return authorizationCache;
+        }
+
+        public void setAuthorizationCache(CacheConfig authorizationCache) {
+            this.authorizationCache = authorizationCache;
+        }
+
+        public CacheConfig getCriterionCache() {
+            return criterionCache;
+        }
+
+        public void setCriterionCache(CacheConfig criterionCache) {
+            this.criterionCache = criterionCache;
+        }
+
+        public SchemaMigration getSchemaMigration() {
+            return schemaMigration;
+        }
+
+        public void setSchemaMigration(SchemaMigration schemaMigration) {
+            this.schemaMigration = schemaMigration;
+        }
+
+        public PoolConfig getPool() {
+            return pool;
+        }
+
+        public void setPool(PoolConfig pool) {
+            this.pool = pool;
+        }
+    }
+
+    public static class PoolConfig {
+        // Number of connections kept open, and the upper bound on connections opened to serve concurrent requests
+        private int minPoolSize = 3;
+        private int maxPoolSize = 15;
+        private int initialPoolSize = 3;
+        // Number of connections opened at once when the pool is exhausted
+        private int acquireIncrement = 3;
+        // Time to wait for a free connection before failing the request, 0 to wait indefinitely
+        private int checkoutTimeoutMillis = 30000;
+        // Query used to test connections, null to use the driver's isValid
+        private String validationQuery;
+        private boolean testOnCheckout = false;
+        private int idleTestPeriodSeconds = 300;
+        // Time after which idle connections beyond min-pool-size are closed
+        private int maxIdleTimeSeconds = 1800;
+        // Time after which connections are replaced regardless of use, 0 for no limit
+        private int maxLifetimeSeconds = 0;
+        // Prepared statements cached across the whole pool and per connection, 0 for no limit on the former. Storage
+        // issues a fixed set of statements, so per-connection caching should cover all of them
+        private int maxStatements = 0;
+        private int statementCacheSize = 100;
+        // Threads used to close evicted cached statements. Should be set to 1 for drivers (e.g. SQL Server) that
+        // deadlock when a statement is closed while its connection is in use
+        private int statementCacheDeferredCloseThreads = 0;
+        // Time after which a connection that has not been returned is forcibly reclaimed, 0 to never reclaim
+        private int unreturnedConnectionTimeoutSeconds = 0;
+        // Whether the checkout stack trace of reclaimed unreturned connections is logged. Costly, use for debugging only
+        private boolean debugUnreturnedConnections = false;
+        // Connections held for longer than this are logged and counted, 0 to disable
+        private long longCheckoutWarningMillis = 10000;
+        // Whether the checkout stack trace of long-held connections is logged. Costly, use for debugging only
+        private boolean captureCheckoutStackTraces = false;
+
+        public int getMinPoolSize() {
+            return minPoolSize;
+        }
+
+        public void setMinPoolSize(int minPoolSize) {
+            this.minPoolSize = minPoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getInitialPoolSize() {
+            return initialPoolSize;
+        }
+
+        public void setInitialPoolSize(int initialPoolSize) {
+            this.initialPoolSize = initialPoolSize;
+        }
+
+        public int getAcquireIncrement() {
+            return acquireIncrement;
+        }
+
+        public void setAcquireIncrement(int acquireIncrement) {
+            this.acquireIncrement = acquireIncrement;
+        }
+
+        public int getCheckoutTimeoutMillis() {
+            return checkoutTimeoutMillis;
+        }
+
+        public void setCheckoutTimeoutMillis(int checkoutTimeoutMillis) {
+            this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        }
+
+        public String getValidationQuery() {
+            return validationQuery;
+        }
+
+        public void setValidationQuery(String validationQuery) {
+            this.validationQuery = validationQuery;
+        }
+
+        public boolean isTestOnCheckout() {
+            return testOnCheckout;
+        }
+
+        public void setTestOnCheckout(boolean testOnCheckout) {
+            this.testOnCheckout = testOnCheckout;
+        }
+
+        public int getIdleTestPeriodSeconds() {
+            return idleTestPeriodSeconds;
+        }
+
+        public void setIdleTestPeriodSeconds(int idleTestPeriodSeconds) {
+            this.idleTestPeriodSeconds = idleTestPeriodSeconds;
+        }
+
+        public int getMaxIdleTimeSeconds() {
+            return maxIdleTimeSeconds;
+        }
+
+        public void setMaxIdleTimeSeconds(int maxIdleTimeSeconds) {
+            this.maxIdleTimeSeconds = maxIdleTimeSeconds;
+        }
+
+        public int getMaxLifetimeSeconds() {
+            return maxLifetimeSeconds;
+        }
+
+        public void setMaxLifetimeSeconds(int maxLifetimeSeconds) {
+            this.maxLifetimeSeconds = maxLifetimeSeconds;
+        }
+
+        public int getMaxStatements() {
+            return maxStatements;
+        }
+
+        public void setMaxStatements(int maxStatements) {
+            this.maxStatements = maxStatements;
+        }
+
+        public int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+
+        public void setStatementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        public int getStatementCacheDeferredCloseThreads() {
+            return statementCacheDeferredCloseThreads;
+        }
+
+        public void setStatementCacheDeferredCloseThreads(int statementCacheDeferredCloseThreads) {
+            this.statementCacheDeferredCloseThreads = statementCacheDeferredCloseThreads;
+        }
+
+        public int getUnreturnedConnectionTimeoutSeconds() {
+            return unreturnedConnectionTimeoutSeconds;
+        }
+
+        public void setUnreturnedConnectionTimeoutSeconds(int unreturnedConnectionTimeoutSeconds) {
+            this.unreturnedConnectionTimeoutSeconds = unreturnedConnectionTimeoutSeconds;
+        }
+
+        public boolean isDebugUnreturnedConnections() {
+            return debugUnreturnedConnections;
+        }
+
+        public void setDebugUnreturnedConnections(boolean debugUnreturnedConnections) {
+            this.debugUnreturnedConnections = debugUnreturnedConnections;
+        }
+
+        public long getLongCheckoutWarningMillis() {
+            return longCheckoutWarningMillis;
+        }
+
+        public void setLongCheckoutWarningMillis(long longCheckoutWarningMillis) {
+            this.longCheckoutWarningMillis = longCheckoutWarningMillis;
+        }
+
+        public boolean isCaptureCheckoutStackTraces() {
+            return captureCheckoutStackTraces;
+        }
+
+        public void setCaptureCheckoutStackTraces(boolean captureCheckoutStackTraces) {
+            this.captureCheckoutStackTraces = captureCheckoutStackTraces;
+        }
+    }
+
+    public static class SchemaMigration {
+        // Whether pending schema migrations for the detected SQL dialect are applied on startup. If disabled, pending
+        // migrations are only reported so that DDL is never run against the database without being opted into
+        private boolean enabled = false;
+        // Version recorded for schemas that predate migration tracking, i.e. that already contain the middleware's
+        // tables but no SCHEMA_VERSION table. Migrations after this version are applied to them
+        private int baselineVersion = 1;
+        // Whether to warn on startup about indexes defined by the migrations that are absent from the database
+        private boolean checkIndexes = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBaselineVersion() {
+            return baselineVersion;
+        }
+
+        public void setBaselineVersion(int baselineVersion) {
+            this.baselineVersion = baselineVersion;
+        }
+
+        public boolean isCheckIndexes() {
+            return checkIndexes;
+        }
+
+        public void setCheckIndexes(boolean checkIndexes) {
+            this.checkIndexes = checkIndexes;
+        }
     }
 
     public static class LDAPConfig {
@@ -215,6 +549,27 @@ public class ApplicationConfiguration {
         public static class ConnectionConfig {
             private String url;
             private String driverClass;
+            private String user;
+            private String pwd;
+            private int minPoolSize = 1;
+            private int maxPoolSize = 10;
+            // Query used to validate connections. If empty, the JDBC4 Connection.isValid() check is used instead
+            private String validationQuery;
+            // Validate each connection as it is handed out. Safer but adds a round trip to every evidence fetch
+            private boolean testOnCheckout = false;
+            // Validate each connection in the background as it is returned to the pool, so that broken connections are
+            // usually replaced before the next fetch. Adds a validation round trip per fetch, off the request path
+            private boolean testOnCheckin = false;
+            // How often idle connections are validated in the background, 0 to disable
+            private int idleTestPeriodSeconds = 300;
+            // Idle connections beyond min-pool-size are closed after this many seconds, 0 to never close
+            private int maxIdleTimeSeconds = 1800;
+            // Connections are retired after this many seconds regardless of activity, 0 for no limit
+            private int maxLifetimeSeconds = 3600;
+            // How long a caller waits for a free connection before failing, 0 to wait indefinitely
+            private int checkoutTimeoutMillis = 30000;
+            // Number of prepared statements each pooled connection keeps open for reuse, 0 to disable
+            private int statementCacheSize = 50;
 
             public String getUrl() {
                 return url;
@@ -231,6 +586,102 @@ public class ApplicationConfiguration {
             public void setDriverClass(String driverClass) {
                 this.driverClass = driverClass;
             }
+
+            public String getUser() {
+                return user;
+            }
+
+            public void setUser(String user) {
+                this.user = user;
+            }
+
+            public String getPwd() {
+                return pwd;
+            }
+
+            public void setPwd(String pwd) {
+                this.pwd = pwd;
+            }
+
+            public int getMinPoolSize() {
+                return minPoolSize;
+            }
+
+            public void setMinPoolSize(int minPoolSize) {
+                this.minPoolSize = minPoolSize;
+            }
+
+            public int getMaxPoolSize() {
+                return maxPoolSize;
+            }
+
+            public void setMaxPoolSize(int maxPoolSize) {
+                this.maxPoolSize = maxPoolSize;
+            }
+
+            public String getValidationQuery() {
+                return validationQuery;
+            }
+
+            public void setValidationQuery(String validationQuery) {
+                this.validationQuery = validationQuery;
+            }
+
+            public boolean isTestOnCheckout() {
+                return testOnCheckout;
+            }
+
+            public void setTestOnCheckout(boolean testOnCheckout) {
+                this.testOnCheckout = testOnCheckout;
+            }
+
+            public boolean isTestOnCheckin() {
+                return testOnCheckin;
+            }
+
+            public void setTestOnCheckin(boolean testOnCheckin) {
+                this.testOnCheckin = testOnCheckin;
+            }
+
+            public int getIdleTestPeriodSeconds() {
+                return idleTestPeriodSeconds;
+            }
+
+            public void setIdleTestPeriodSeconds(int idleTestPeriodSeconds) {
+                this.idleTestPeriodSeconds = idleTestPeriodSeconds;
+            }
+
+            public int getMaxIdleTimeSeconds() {
+                return maxIdleTimeSeconds;
+            }
+
+            public void setMaxIdleTimeSeconds(int maxIdleTimeSeconds) {
+                this.maxIdleTimeSeconds = maxIdleTimeSeconds;
+            }
+
+            public int getMaxLifetimeSeconds() {
+                return maxLifetimeSeconds;
+            }
+
+            public void setMaxLifetimeSeconds(int maxLifetimeSeconds) {
+                this.maxLifetimeSeconds = maxLifetimeSeconds;
+            }
+
+            public int getCheckoutTimeoutMillis() {
+                return checkoutTimeoutMillis;
+            }
+
+            public void setCheckoutTimeoutMillis(int checkoutTimeoutMillis) {
+                this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+            }
+
+            public int getStatementCacheSize() {
+                return statementCacheSize;
+            }
+
+            public void setStatementCacheSize(int statementCacheSize) {
+                this.statementCacheSize = statementCacheSize;
+            }
         }
     }
 
@@ -263,4 +714,359 @@ public class ApplicationConfiguration {
             this.config = config;
         }
     }
+
+    public static class TextResolution {
+        // Number of analysis engine instances (and therefore concurrent NLP runs) in the pipeline pool
+        private int pipelinePoolSize = 2;
+        // Number of NLP requests that may wait for a free pipeline before further requests are rejected
+        private int queueDepth = 32;
+        // Maximum time a single NLP request may take (including time spent queued) before it is aborted
+        private long timeoutMillis = 30000;
+        // Cache of (entity type, data sources, CUI) -> resolved data source representations
+        private CacheConfig representationCache = new CacheConfig(100000, 86400);
+        // Cache of normalized text -> UMLS CUIs produced by the NLP pipeline
+        private CacheConfig textCache = new CacheConfig(50000, 0, 64L * 1024 * 1024);
+        // Whether text -> CUI results are also persisted to the backing database so that they survive restarts
+        private boolean persistTextCache = false;
+        // Maximum number of texts accepted in a single batch resolution request, bounding how long one request may
+        // occupy the pipeline pool. 0 for no limit
+        private int maxBatchSize = 100;
+
+        public int getPipelinePoolSize() {
+            return pipelinePoolSize;
+        }
+
+        public void setPipelinePoolSize(int pipelinePoolSize) {
+            this.pipelinePoolSize = pipelinePoolSize;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public void setQueueDepth(int queueDepth) {
+            this.queueDepth = queueDepth;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public CacheConfig getRepresentationCache() {
+            return representationCache;
+        }
+
+        public void setRepresentationCache(CacheConfig representationCache) {
+            this.representationCache = representationCache;
+        }
+
+        public CacheConfig getTextCache() {
+            return textCache;
+        }
+
+        public void setTextCache(CacheConfig textCache) {
+            this.textCache = textCache;
+        }
+
+        public boolean isPersistTextCache() {
+            return persistTextCache;
+        }
+
+        public void setPersistTextCache(boolean persistTextCache) {
+            this.persistTextCache = persistTextCache;
+        }
+    }
+
+    public static class JobDispatch {
+        // Number of threads submitting queued jobs to the job executor
+        private int dispatcherThreads = 2;
+        // Number of times submission of a job is attempted before it is marked as failed
+        private int maxAttempts = 5;
+        // Delay before the first retry, doubling with each further attempt up to max-backoff-millis
+        private long initialBackoffMillis = 1000;
+        private long maxBackoffMillis = 60000;
+        // Whether jobs left queued but never submitted (e.g. by a restart) are resubmitted on startup. Should only be
+        // enabled on one instance if multiple middleware instances share a persistence database
+        private boolean recoverQueuedJobs = true;
+        // Maximum number of jobs running at once across all projects, and within a single project. 0 for no limit
+        private int maxConcurrentJobs = 4;
+        private int maxConcurrentJobsPerProject = 2;
+        // How often running jobs are checked for completion so that their concurrency slots can be released
+        private int terminationCheckSeconds = 60;
+        // How often the status of in-flight jobs is retrieved from the job executor and recorded, 0 to disable
+        private int statusReconcileSeconds = 30;
+        // How long an in-flight job may be absent from the job executor's reported states before it is marked as failed,
+        // e.g. if it was lost on an executor restart or expired from the executor's job history. 0 to never fail them
+        private int unknownJobGraceSeconds = 300;
+        // Whether job parallelism is derived from the executor's currently available slots rather than using the
+        // executor's configured default, bounded by min-parallelism and max-parallelism (0 for no upper bound)
+        private boolean dynamicParallelism = false;
+        private int minParallelism = 1;
+        private int maxParallelism = 0;
+        // Whether jobs whose cohort is expected to contain at most local-max-cohort-size patients are run in-process
+        // (see local-executor settings) rather than by the configured job executor. Cohort size is estimated from
+        // the project's most recent completed job, so a project's first job is never run locally
+        private boolean localExecutionEnabled = false;
+        private long localMaxCohortSize = 500;
+        // Whether criterion subtrees left unchanged since a recent completed job of the same project have their
+        // results copied from that job rather than being re-evaluated. Only applies to jobs routed to an executor whose
+        // backend is declared to support --reusedNodes (backend-supports-reused-nodes under flink / local-executor)
+        private boolean subtreeReuseEnabled = false;
+        // Maximum age of a prior job whose results may be reused, bounding staleness relative to source data
+        private long subtreeReuseMaxAgeSeconds = 86400;
+
+        public int getDispatcherThreads() {
+            return dispatcherThreads;
+        }
+
+        public void setDispatcherThreads(int dispatcherThreads) {
+            this.dispatcherThreads = dispatcherThreads;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMillis() {
+            return initialBackoffMillis;
+        }
+
+        public void setInitialBackoffMillis(long initialBackoffMillis) {
+            this.initialBackoffMillis = initialBackoffMillis;
+        }
+
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+
+        public boolean isRecoverQueuedJobs() {
+            return recoverQueuedJobs;
+        }
+
+        public void setRecoverQueuedJobs(boolean recoverQueuedJobs) {
+            this.recoverQueuedJobs = recoverQueuedJobs;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+
+        public int getMaxConcurrentJobsPerProject() {
+            return maxConcurrentJobsPerProject;
+        }
+
+        public void setMaxConcurrentJobsPerProject(int maxConcurrentJobsPerProject) {
+            this.maxConcurrentJobsPerProject = maxConcurrentJobsPerProject;
+        }
+
+        public int getTerminationCheckSeconds() {
+            return terminationCheckSeconds;
+        }
+
+        public void setTerminationCheckSeconds(int terminationCheckSeconds) {
+            this.terminationCheckSeconds = terminationCheckSeconds;
+        }
+
+        public int getStatusReconcileSeconds() {
+            return statusReconcileSeconds;
+        }
+
+        public void setStatusReconcileSeconds(int statusReconcileSeconds) {
+            this.statusReconcileSeconds = statusReconcileSeconds;
+        }
+
+        public int getUnknownJobGraceSeconds() {
+            return unknownJobGraceSeconds;
+        }
+
+        public void setUnknownJobGraceSeconds(int unknownJobGraceSeconds) {
+            this.unknownJobGraceSeconds = unknownJobGraceSeconds;
+        }
+
+        public boolean isDynamicParallelism() {
+            return dynamicParallelism;
+        }
+
+        public void setDynamicParallelism(boolean dynamicParallelism) {
+            this.dynamicParallelism = dynamicParallelism;
+        }
+
+        public int getMinParallelism() {
+            return minParallelism;
+        }
+
+        public void setMinParallelism(int minParallelism) {
+            this.minParallelism = minParallelism;
+        }
+
+        public int getMaxParallelism() {
+            return maxParallelism;
+        }
+
+        public void setMaxParallelism(int maxParallelism) {
+            this.maxParallelism = maxParallelism;
+        }
+
+        public boolean isLocalExecutionEnabled() {
+            return localExecutionEnabled;
+        }
+
+        public void setLocalExecutionEnabled(boolean localExecutionEnabled) {
+            this.localExecutionEnabled = localExecutionEnabled;
+        }
+
+        public long getLocalMaxCohortSize() {
+            return localMaxCohortSize;
+        }
+
+        public void setLocalMaxCohortSize(long localMaxCohortSize) {
+            this.localMaxCohortSize = localMaxCohortSize;
+        }
+
+        public boolean isSubtreeReuseEnabled() {
+            return subtreeReuseEnabled;
+        }
+
+        public void setSubtreeReuseEnabled(boolean subtreeReuseEnabled) {
+            this.subtreeReuseEnabled = subtreeReuseEnabled;
+        }
+
+        public long getSubtreeReuseMaxAgeSeconds() {
+            return subtreeReuseMaxAgeSeconds;
+        }
+
+        public void setSubtreeReuseMaxAgeSeconds(long subtreeReuseMaxAgeSeconds) {
+            this.subtreeReuseMaxAgeSeconds = subtreeReuseMaxAgeSeconds;
+        }
+    }
+
+    public static class EvidenceRetrieval {
+        // Maximum number of evidence UIDs of the same provider and type looked up in a single query
+        private int batchSize = 50;
+        // Number of evidence lookup queries that may run concurrently across all requests
+        private int fetchParallelism = 8;
+        // In-memory cache of evidence UID -> serialized FHIR resource. Evidence rows are immutable so no TTL is needed
+        private CacheConfig cache = new CacheConfig(100000, 0, 256L * 1024 * 1024);
+        // Directory for an optional on-disk tier to which entries evicted from memory are spilled, empty to disable
+        private String diskCacheDirectory;
+        private long diskCacheMaxEntries = 1000000;
+        private long diskCacheMaxBytes = 2L * 1024 * 1024 * 1024;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getFetchParallelism() {
+            return fetchParallelism;
+        }
+
+        public void setFetchParallelism(int fetchParallelism) {
+            this.fetchParallelism = fetchParallelism;
+        }
+
+        public CacheConfig getCache() {
+            return cache;
+        }
+
+        public void setCache(CacheConfig cache) {
+            this.cache = cache;
+        }
+
+        public String getDiskCacheDirectory() {
+            return diskCacheDirectory;
+        }
+
+        public void setDiskCacheDirectory(String diskCacheDirectory) {
+            this.diskCacheDirectory = diskCacheDirectory;
+        }
+
+        public long getDiskCacheMaxEntries() {
+            return diskCacheMaxEntries;
+        }
+
+        public void setDiskCacheMaxEntries(long diskCacheMaxEntries) {
+            this.diskCacheMaxEntries = diskCacheMaxEntries;
+        }
+
+        public long getDiskCacheMaxBytes() {
+            return diskCacheMaxBytes;
+        }
+
+        public void setDiskCacheMaxBytes(long diskCacheMaxBytes) {
+            this.diskCacheMaxBytes = diskCacheMaxBytes;
+        }
+    }
+
+    public static class CacheConfig {
+        private long maxEntries;
+        // Time after which an entry is recomputed, 0 or less to never expire
+        private long ttlSeconds;
+        // Approximate memory budget for cached entries, 0 or less to bound by entry count only
+        private long maxBytes;
+
+        public CacheConfig() {
+        }
+
+        public CacheConfig(long maxEntries, long ttlSeconds) {
+            this(maxEntries, ttlSeconds, 0);
+        }
+
+        public CacheConfig(long maxEntries, long ttlSeconds, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.ttlSeconds = ttlSeconds;
+            this.maxBytes = maxBytes;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package org.ohnlp.cat.cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A simple thread-safe in-memory cache bounded by entry count and optionally by total entry weight (e.g. estimated
+ * memory footprint) and a time-to-live. Entries are evicted in least-recently-used order once either bound is
+ * exceeded. Hit, miss, and eviction counts are tracked for diagnostics. An eviction listener may be registered to be
+ * notified of entries evicted to make room, e.g. to spill them to a secondary tier.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+    private final long maxEntries;
+    private final long ttlMillis;
+    private final long maxWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long totalWeight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile BiConsumer<? super K, ? super V> evictionListener;
+
+    /**
+     * @param maxEntries The maximum number of entries to retain
+     * @param ttlMillis  The time in milliseconds after which an entry is considered expired, or a value <= 0 for no
+     *                   expiration
+     */
+    public BoundedCache(long maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, 0, (k, v) -> 0);
+    }
+
+    /**
+     * @param maxEntries The maximum number of entries to retain
+     * @param ttlMillis  The time in milliseconds after which an entry is considered expired, or a value <= 0 for no
+     *                   expiration
+     * @param maxWeight  The maximum total weight of all entries, or a value <= 0 for no weight bound
+     * @param weigher    Computes the weight of an entry at insertion time
+     */
+    public BoundedCache(long maxEntries, long ttlMillis, long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return The cached value for the key, or null if the key is absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (isExpired(entry)) {
+                entries.remove(key);
+                totalWeight -= entry.weight;
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Gets the cached value for the key, computing and caching it via the supplied loader if absent. The loader is
+     * invoked outside of the cache lock, so concurrent misses on the same key may each invoke the loader.
+     * Null values returned by the loader are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V ret = get(key);
+        if (ret == null) {
+            ret = loader.apply(key);
+            if (ret != null) {
+                put(key, ret);
+            }
+        }
+        return ret;
+    }
+
+    public void put(K key, V value) {
+        List<Map.Entry<K, V>> evicted;
+        synchronized (entries) {
+            Entry<V> entry = new Entry<>(value, System.currentTimeMillis(), weigher.applyAsLong(key, value));
+            Entry<V> prior = entries.put(key, entry);
+            if (prior != null) {
+                totalWeight -= prior.weight;
+            }
+            totalWeight += entry.weight;
+            evicted = evictOverflow();
+        }
+        // Notify outside of the lock so that listeners performing I/O do not block other cache users
+        BiConsumer<? super K, ? super V> listener = this.evictionListener;
+        if (listener != null) {
+            for (Map.Entry<K, V> e : evicted) {
+                listener.accept(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return Whether a non-expired entry exists for the key. Does not affect recency or hit/miss counts
+     */
+    public boolean contains(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && !isExpired(entry);
+        }
+    }
+
+    /**
+     * Registers a listener to be called with entries removed to keep the cache within its size or weight bounds.
+     * Expired, replaced, and explicitly invalidated entries are not reported.
+     */
+    public void setEvictionListener(BiConsumer<? super K, ? super V> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            Entry<V> prior = entries.remove(key);
+            if (prior != null) {
+                totalWeight -= prior.weight;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries whose key matches the supplied predicate
+     */
+    public void invalidateIf(Predicate<? super K> predicate) {
+        synchronized (entries) {
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> next = it.next();
+                if (predicate.test(next.getKey())) {
+                    totalWeight -= next.getValue().weight;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(entries.size(), totalWeight, hits.get(), misses.get(), evictions.get());
+        }
+    }
+
+    // Must be called while holding the lock on entries
+    private List<Map.Entry<K, V>> evictOverflow() {
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight)) && it.hasNext()) {
+            Map.Entry<K, Entry<V>> next = it.next();
+            totalWeight -= next.getValue().weight;
+            it.remove();
+            evictions.incrementAndGet();
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(next.getKey(), next.getValue().value));
+        }
+        return evicted;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.created > ttlMillis;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long created;
+        private final long weight;
+
+        private Entry(V value, long created, long weight) {
+            this.value = value;
+            this.created = created;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.ohnlp.cat.cache;
+
+/**
+ * A point-in-time snapshot of {@link BoundedCache} usage counters
+ */
+public class CacheStats {
+    private final long size;
+    private final long weight;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheStats(long size, long weight, long hits, long misses, long evictions) {
+        this.size = size;
+        this.weight = weight;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,101 @@
+package org.ohnlp.cat.cache;
+
+import org.ohnlp.cat.util.Hashes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.stream.Stream;
+
+/**
+ * A bounded on-disk store of byte arrays, intended as a secondary tier behind an in-memory {@link BoundedCache}.
+ * Each value is held in its own file within the configured directory, with the index of stored keys kept in memory.
+ * The directory is cleared on startup as the index does not survive restarts. Files are removed in
+ * least-recently-used order once the entry count or total byte bounds are exceeded.
+ */
+public class FileBackedByteStore {
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final BoundedCache<String, StoredFile> index;
+
+    /**
+     * @param directory  The directory in which to store values. Created if it does not exist
+     * @param maxEntries The maximum number of values to retain
+     * @param maxBytes   The maximum total size of retained values, or a value <= 0 for no size bound
+     */
+    public FileBackedByteStore(Path directory, long maxEntries, long maxBytes) {
+        this.directory = directory;
+        this.index = new BoundedCache<>(maxEntries, 0, maxBytes, (k, v) -> v.length);
+        this.index.setEvictionListener((k, v) -> delete(v.path));
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> existing = Files.list(directory)) {
+                existing.filter(p -> p.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(this::delete);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * @return The stored value for the key, or null if absent or no longer readable
+     */
+    public byte[] get(String key) {
+        StoredFile stored = index.get(key);
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(stored.path);
+        } catch (IOException e) {
+            // Removed underneath us (e.g. by a concurrent eviction), treat as a miss
+            index.invalidate(key);
+            return null;
+        }
+    }
+
+    public boolean contains(String key) {
+        return index.contains(key);
+    }
+
+    public void put(String key, byte[] value) {
+        Path target = directory.resolve(fileNameForKey(key));
+        try {
+            // Write to a temporary file first so that readers never observe a partially written value
+            Path tmp = Files.createTempFile(directory, "pending", ".tmp");
+            Files.write(tmp, value);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.put(key, new StoredFile(target, value.length));
+        } catch (IOException e) {
+            // The disk tier is best-effort only
+            System.out.println("Failed to write " + key + " to cache directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    public CacheStats getStats() {
+        return index.getStats();
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("Failed to remove cache file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static String fileNameForKey(String key) {
+        return Hashes.sha256Hex(key) + FILE_SUFFIX;
+    }
+
+    private static class StoredFile {
+        private final Path path;
+        private final long length;
+
+        private StoredFile(Path path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package org.ohnlp.cat.controllers;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.hl7.fhir.r4.model.DomainResource;
@@ -10,13 +10,20 @@ import org.ohnlp.cat.api.criteria.Criterion;
 import org.ohnlp.cat.api.criteria.CriterionInfo;
 import org.ohnlp.cat.api.criteria.CriterionJudgement;
 import org.ohnlp.cat.api.evidence.Evidence;
+import org.ohnlp.cat.cache.CacheStats;
 import org.ohnlp.cat.evidence.EvidenceProvider;
-import org.ohnlp.cat.persistence.JDBCBackedStorage;
+import org.ohnlp.cat.evidence.RawJsonResource;
+import org.ohnlp.cat.persistence.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @Tag(name = "Cohort Controller", description = "Cohort and Evidence Related Methods, Including Results and Evidence Judgements")
@@ -26,11 +33,13 @@ public class CohortController {
 
     private final JDBCBackedStorage storage;
     private final EvidenceProvider evidenceProvider;
+    private final ObjectMapper om;
 
     @Autowired
-    public CohortController(JDBCBackedStorage storage, EvidenceProvider evidenceProvider) {
+    public CohortController(JDBCBackedStorage storage, EvidenceProvider evidenceProvider, ObjectMapper om) {
         this.storage = storage;
         this.evidenceProvider = evidenceProvider;
+        this.om = om;
     }
 
 
@@ -47,6 +56,46 @@ public class CohortController {
         }
     }
 
+    @Operation(summary = "Get a Page of Cohort Candidates by Job UID",
+            description = "Candidates are ordered by descending score. Pass the returned nextCursor value as the " +
+                    "cursor parameter to retrieve the following page; a null nextCursor indicates the last page")
+    @GetMapping("/page")
+    public @ResponseBody
+    CohortPage getRetrievedCohortPage(Authentication authentication,
+                                      @RequestParam(name = "job_uid") UUID jobUID,
+                                      @RequestParam(name = "cursor", required = false) String cursor,
+                                      @RequestParam(name = "page_size", defaultValue = "0") int pageSize) {
+        try {
+            return storage.getRetrievedCohortPage(authentication, jobUID, cursor, pageSize);
+        } catch (Throwable e) {
+            // TODO log the Exception
+            throw new RuntimeException("Error occurred on cohort retrieval result retrieve");
+        }
+    }
+
+    @Operation(summary = "Stream all Cohort Candidates by Job UID as Newline-Delimited JSON, ordered by descending score")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamRetrievedCohort(Authentication authentication,
+                                      @RequestParam(name = "job_uid") UUID jobUID,
+                                      HttpServletResponse response) {
+        try {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            OutputStream out = response.getOutputStream();
+            // Rows are written to the (buffered) response as they are read rather than collected first
+            storage.streamRetrievedCohort(authentication, jobUID, candidate -> {
+                try {
+                    out.write(om.writeValueAsBytes(candidate));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (Throwable e) {
+            // TODO log the Exception
+            throw new RuntimeException("Error occurred on cohort retrieval result stream");
+        }
+    }
+
     @Operation(summary = "Get a Listing of Evidence for a given Job/Patient on a Specific Criterion (node) UID")
     @GetMapping("/node_evidence")
     public @ResponseBody
@@ -105,6 +154,21 @@ public class CohortController {
         }
     }
 
+    @Operation(summary = "Writes current inclusion status for multiple candidate patient UIDs of the given job in a single transaction",
+            description = "Returns the number of judgements written. If any patient UID is not in the job's cohort, no judgements are written")
+    @PostMapping("/relevance/bulk")
+    public @ResponseBody
+    Integer writeCohortRelevances(Authentication authentication,
+                                  @RequestParam(name = "job_uid") UUID jobUID,
+                                  @RequestBody List<CohortJudgementUpdate> judgements) {
+        try {
+            return storage.writeCohortJudgements(authentication, jobUID, judgements);
+        } catch (Throwable e) {
+            // TODO log the Exception
+            throw new RuntimeException("Error occurred on bulk cohort judgement write");
+        }
+    }
+
     @Operation(summary = "Gets match judgement (if present), or algorithmicly determined judgement for a given list " +
             "of evidence UIDs associated with a given job and criterion (node) UID")
     @GetMapping("/evidence_relevance")
@@ -148,6 +212,21 @@ public class CohortController {
         }
     }
 
+    @Operation(summary = "Writes match judgements for multiple evidence UIDs associated with the given job in a single transaction",
+            description = "Returns the number of judgements written. If any evidence UID does not exist for its criterion (node) UID, no judgements are written")
+    @PostMapping("/evidence_relevance/bulk")
+    public @ResponseBody
+    Integer writeEvidenceRelevances(Authentication authentication,
+                                    @RequestParam(name = "job_uid") UUID jobUID,
+                                    @RequestBody List<EvidenceJudgementUpdate> judgements) {
+        try {
+            return storage.writeEvidenceJudgements(authentication, jobUID, judgements);
+        } catch (Throwable e) {
+            // TODO log the Exception
+            throw new RuntimeException("Error occurred on bulk evidence judgement write");
+        }
+    }
+
     @Operation(summary = "Gets match judgement (if present), or algorithmicly determined judgement for all nodes " +
             "of the Criterion associated with the given job UID")
     @GetMapping("/criterion_match_status")
@@ -179,6 +258,21 @@ public class CohortController {
         }
     }
 
+    @Operation(summary = "Writes criterion match judgements for multiple person and criterion (node) UIDs of the given job in a single transaction",
+            description = "Returns the number of judgements written")
+    @PostMapping("/criterion_match_status/bulk")
+    public @ResponseBody
+    Integer setCriterionMatchStatuses(Authentication authentication,
+                                      @RequestParam(name = "job_uid") UUID jobUID,
+                                      @RequestBody List<CriterionMatchUpdate> judgements) {
+        try {
+            return storage.setCriterionMatchStatuses(authentication, jobUID, judgements);
+        } catch (Throwable e) {
+            // TODO log the Exception
+            throw new RuntimeException("Error occurred on bulk criterion match status write");
+        }
+    }
+
 
     @Operation(summary = "Gets the revision of a criterion associated with a given job UID. ",
             description = "Note that for projects, the associated method under /_projects should be called instead using project UID as a parameter " +
@@ -197,11 +291,14 @@ public class CohortController {
     @Operation(summary = "Gets the FHIR resources associated with a given set of evidence UIDs")
     @GetMapping("/evidencebyuid")
     @ResponseBody
-    Map<String, JsonNode> getEvidenceByUID(@RequestParam(name = "evidenceUID") String... evidenceUIDs) {
-        Map<String, JsonNode> ret = new HashMap<>();
-        for (String evidenceUID : evidenceUIDs) {
-            ret.put(evidenceUID, evidenceProvider.getEvidenceForUID(evidenceUID));
-        }
-        return ret;
+    Map<String, RawJsonResource> getEvidenceByUID(@RequestParam(name = "evidenceUID") String... evidenceUIDs) {
+        return evidenceProvider.getEvidenceForUIDs(Arrays.asList(evidenceUIDs));
+    }
+
+    @Operation(summary = "Gets usage statistics of the evidence resource cache")
+    @GetMapping("/evidence_cache_stats")
+    public @ResponseBody
+    Map<String, CacheStats> getEvidenceCacheStats() {
+        return evidenceProvider.getCacheStats();
     }
 }
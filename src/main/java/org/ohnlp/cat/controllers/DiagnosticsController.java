@@ -0,0 +1,30 @@
+package org.ohnlp.cat.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.ohnlp.cat.persistence.ConnectionCheckoutStats;
+import org.ohnlp.cat.persistence.JDBCBackedStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Tag(name = "Diagnostics Controller", description = "Resource Usage of this Middleware Instance")
+@Controller
+@RequestMapping("/_diagnostics")
+public class DiagnosticsController {
+    private final JDBCBackedStorage storage;
+
+    @Autowired
+    public DiagnosticsController(JDBCBackedStorage storage) {
+        this.storage = storage;
+    }
+
+    @Operation(summary = "Gets usage of the persistence connection pool, including connection checkout durations")
+    @GetMapping("/persistence_pool")
+    public @ResponseBody
+    ConnectionCheckoutStats getPersistencePoolStats() {
+        return storage.getConnectionPoolStats();
+    }
+}
@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.ohnlp.cat.api.ehr.DataSourceInformation;
 import org.ohnlp.cat.api.jobs.Job;
+import org.ohnlp.cat.executors.JobExecutorManager;
 import org.ohnlp.cat.persistence.JDBCBackedStorage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Tag(name="Job Controller", description="Operations relating to Job Creation, Management, and Status")
@@ -19,10 +21,12 @@ import java.util.UUID;
 public class JobController {
     // TODO handle backends...
     private final JDBCBackedStorage storage;
+    private final JobExecutorManager jobExecutor;
 
     @Autowired
-    public JobController(JDBCBackedStorage storage) {
+    public JobController(JDBCBackedStorage storage, JobExecutorManager jobExecutor) {
         this.storage = storage;
+        this.jobExecutor = jobExecutor;
     }
 
     @Operation(summary="Gets a listing of jobs associated to the calling user, sorted by date in descending order")
@@ -103,4 +107,11 @@ public class JobController {
         }
     }
 
+    @Operation(summary="Gets the number of jobs currently running and waiting for admission on this middleware instance")
+    @GetMapping("/scheduler_state")
+    public @ResponseBody
+    Map<String, Integer> getSchedulerState() {
+        return jobExecutor.getSchedulerState();
+    }
+
 }
@@ -4,16 +4,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.ohnlp.cat.api.criteria.ClinicalEntityType;
 import org.ohnlp.cat.api.criteria.parser.DataSourceRepresentation;
 import org.ohnlp.cat.api.ehr.DataSourceInformation;
+import org.ohnlp.cat.cache.CacheStats;
 import org.ohnlp.cat.persistence.JDBCBackedStorage;
+import org.ohnlp.cat.textres.TextResolutionRequest;
 import org.ohnlp.cat.textres.TextResolutionService;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Tag(
@@ -42,9 +47,38 @@ public class TextResolutionController {
         try {
             List<DataSourceInformation> activeDataSources = storage.getProjectDataSources(authentication, uid);
             return textRes.getDataSourceRepresentations(text, entityType, activeDataSources.stream().map(DataSourceInformation::getBackendID).collect(Collectors.toList()));
+        } catch (RejectedExecutionException e) {
+            // NLP pipeline pool and queue are saturated, have the client back off and retry
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Text resolution is currently at capacity, please retry");
         } catch (Throwable e) {
             // TODO log the IOException
             throw new RuntimeException("Error occurred on representation resolution");
         }
     }
+
+    @PostMapping("/representations/batch")
+    public @ResponseBody
+    Map<String, Collection<DataSourceRepresentation>> getRepresentationsForTexts(
+            Authentication authentication,
+            @RequestParam(name="project_uid") UUID uid,
+            @RequestBody List<TextResolutionRequest> requests) {
+        try {
+            List<DataSourceInformation> activeDataSources = storage.getProjectDataSources(authentication, uid);
+            return textRes.getDataSourceRepresentations(requests, activeDataSources.stream().map(DataSourceInformation::getBackendID).collect(Collectors.toList()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            // NLP pipeline pool and queue are saturated, have the client back off and retry
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Text resolution is currently at capacity, please retry");
+        } catch (Throwable e) {
+            // TODO log the IOException
+            throw new RuntimeException("Error occurred on batch representation resolution");
+        }
+    }
+
+    @GetMapping("/cache_stats")
+    public @ResponseBody
+    Map<String, CacheStats> getCacheStats() {
+        return textRes.getCacheStats();
+    }
 }
@@ -1,25 +1,30 @@
 package org.ohnlp.cat.evidence;
 
 import ca.uhn.fhir.context.FhirContext;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.beam.sdk.schemas.Schema;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
 import org.apache.beam.sdk.values.Row;
 import org.hl7.fhir.r4.model.DomainResource;
-import org.joda.time.DateTime;
 import org.joda.time.Instant;
 import org.ohnlp.cat.ApplicationConfiguration;
 import org.ohnlp.cat.api.criteria.ClinicalEntityType;
 import org.ohnlp.cat.api.ehr.ResourceProvider;
+import org.ohnlp.cat.cache.BoundedCache;
+import org.ohnlp.cat.cache.CacheStats;
+import org.ohnlp.cat.cache.FileBackedByteStore;
 import org.ohnlp.cat.common.impl.ehr.OHDSICDMResourceProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.beans.PropertyVetoException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,15 +33,47 @@ public class EvidenceProvider {
 
     private Map<String, ResourceProvider> resourceProviders;
     private Map<String, Map<ClinicalEntityType, String>> resourceQueries;
-    private Map<String, Connection> connections;
+    private Map<String, ComboPooledDataSource> dataSources;
     private FhirContext context = FhirContext.forR4Cached();
-    private ThreadLocal<ObjectMapper> om = ThreadLocal.withInitial(ObjectMapper::new);
+    private final int batchSize;
+    private final ExecutorService fetchExecutor;
+    // Evidence UIDs refer to immutable EHR rows, so serialized FHIR resources are cached indefinitely (subject to size
+    // bounds), optionally spilling to disk once evicted from memory. Encoded JSON is almost entirely ASCII and is
+    // therefore held by compact (single byte per character) strings
+    private final BoundedCache<String, String> resourceCache;
+    private final FileBackedByteStore diskCache;
+    // Batch query text by provider, type and batch size, and row mappers by provider and type
+    private final Map<String, String> batchQueries = new ConcurrentHashMap<>();
+    private final Map<String, EvidenceRowMapper> rowMappers = new ConcurrentHashMap<>();
 
     @Autowired
     public EvidenceProvider(ApplicationConfiguration configuration) {
+        this.batchSize = Math.max(1, configuration.getEvidence().getBatchSize());
+        int parallelism = Math.max(1, configuration.getEvidence().getFetchParallelism());
+        ApplicationConfiguration.CacheConfig cacheConfig = configuration.getEvidence().getCache();
+        this.resourceCache = new BoundedCache<>(cacheConfig.getMaxEntries(), cacheConfig.getTtlSeconds() * 1000,
+                cacheConfig.getMaxBytes(), (k, v) -> 64L + k.length() + v.length());
+        String diskCacheDirectory = configuration.getEvidence().getDiskCacheDirectory();
+        if (diskCacheDirectory != null && !diskCacheDirectory.trim().isEmpty()) {
+            this.diskCache = new FileBackedByteStore(Paths.get(diskCacheDirectory),
+                    configuration.getEvidence().getDiskCacheMaxEntries(), configuration.getEvidence().getDiskCacheMaxBytes());
+            this.resourceCache.setEvictionListener((evidenceUID, resource) -> {
+                if (!diskCache.contains(evidenceUID)) {
+                    diskCache.put(evidenceUID, resource.getBytes(StandardCharsets.UTF_8));
+                }
+            });
+        } else {
+            this.diskCache = null;
+        }
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "evidence-fetch-" + threadIdx.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
         resourceProviders = new HashMap<>();
         resourceQueries = new HashMap<>();
-        connections = new HashMap<>();
+        dataSources = new HashMap<>();
         if (configuration.getEvidenceProviders() != null) {
             configuration.getEvidenceProviders().forEach((name, settings) -> {
                 ApplicationConfiguration.EvidenceProviderConfig.ProviderConfig providerConfig = settings.getProvider();
@@ -46,11 +83,9 @@ public class EvidenceProvider {
                     provider.init(name, providerConfig.getConfig());
                     resourceProviders.put(name, provider);
                     resourceQueries.put(name, initResourceQueries(provider));
-
-                    Class.forName(connConfig.getDriverClass());
-                    connections.put(name, DriverManager.getConnection(connConfig.getUrl())); // todo handle more config settings
+                    dataSources.put(name, initDataSource(name, connConfig));
                 } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
-                         NoSuchMethodException | ClassNotFoundException | SQLException e) {
+                         NoSuchMethodException | ClassNotFoundException | PropertyVetoException e) {
                     throw new RuntimeException(e);
                 }
             });
@@ -59,11 +94,42 @@ public class EvidenceProvider {
         }
     }
 
+    private ComboPooledDataSource initDataSource(String name, ApplicationConfiguration.EvidenceProviderConfig.ConnectionConfig connConfig) throws PropertyVetoException {
+        ComboPooledDataSource ds = new ComboPooledDataSource();
+        ds.setDataSourceName("evidence-" + name);
+        ds.setDriverClass(connConfig.getDriverClass());
+        ds.setJdbcUrl(connConfig.getUrl());
+        if (connConfig.getUser() != null) {
+            ds.setUser(connConfig.getUser());
+            ds.setPassword(connConfig.getPwd());
+        }
+        ds.setMinPoolSize(connConfig.getMinPoolSize());
+        ds.setInitialPoolSize(connConfig.getMinPoolSize());
+        ds.setMaxPoolSize(Math.max(connConfig.getMinPoolSize(), connConfig.getMaxPoolSize()));
+        if (connConfig.getValidationQuery() != null && !connConfig.getValidationQuery().isEmpty()) {
+            ds.setPreferredTestQuery(connConfig.getValidationQuery());
+        }
+        // Check-in tests run asynchronously on every returned connection, not only those returned after an error.
+        // By default, dropped connections are instead detected by the idle connection test
+        ds.setTestConnectionOnCheckin(connConfig.isTestOnCheckin());
+        ds.setTestConnectionOnCheckout(connConfig.isTestOnCheckout());
+        ds.setIdleConnectionTestPeriod(connConfig.getIdleTestPeriodSeconds());
+        ds.setMaxIdleTimeExcessConnections(connConfig.getMaxIdleTimeSeconds());
+        ds.setMaxConnectionAge(connConfig.getMaxLifetimeSeconds());
+        ds.setCheckoutTimeout(connConfig.getCheckoutTimeoutMillis());
+        // Evidence lookups only ever use a handful of distinct statements, so have each connection keep them prepared
+        ds.setMaxStatementsPerConnection(connConfig.getStatementCacheSize());
+        // Keep retrying in the background rather than permanently marking the pool broken if the EHR is unreachable
+        ds.setBreakAfterAcquireFailure(false);
+        return ds;
+    }
+
+    // Per-ID resource query, less the leading SELECT and batch index column added when assembling batch queries
     private Map<ClinicalEntityType, String> initResourceQueries(ResourceProvider resourceProvider) {
         Map<ClinicalEntityType, String> ret = new HashMap<>();
         for (ClinicalEntityType type : ClinicalEntityType.values()) {
             ret.put(type, String.join(" ",
-                    "SELECT * FROM (" + resourceProvider.getQuery(type) + ") cat_resource_query",
+                    "cat_resource_query.* FROM (" + resourceProvider.getQuery(type) + ") cat_resource_query",
                     "WHERE",
                     resourceProvider.getEvidenceIDFilter(type))
             );
@@ -71,52 +137,188 @@ public class EvidenceProvider {
         return ret;
     }
 
-    public JsonNode getEvidenceForUID(String evidenceUID) {
-        if (evidenceUID.split(":").length < 3) {
-            evidenceUID = "ehr:" + evidenceUID; // Legacy handling
+    public RawJsonResource getEvidenceForUID(String evidenceUID) {
+        String cached = getCachedResource(evidenceUID);
+        if (cached != null) {
+            return new RawJsonResource(cached);
         }
-        // First parse out actual evidence ID/type
-        String id = evidenceUID;
-        String providerID = id.substring(0, id.indexOf(":"));
-        id = id.substring(id.indexOf(":") + 1);
-        ClinicalEntityType type = ClinicalEntityType.valueOf(id.substring(0, id.indexOf(":")));
-        id = id.substring(id.indexOf(":") + 1);
-        String basePS;
-        Object[] params;
-        ResourceProvider provider = resourceProviders.get(providerID);
-        Map<ClinicalEntityType, String> queries = resourceQueries.get(providerID);
-        Connection conn = connections.get(providerID);
-        basePS = queries.get(type);
-        params = provider.parseIDTagToParams(type, id);
+        EvidenceKey key = EvidenceKey.parse(evidenceUID);
         try {
-            PreparedStatement ps = conn.prepareStatement(basePS);
-            for (int i = 0; i < params.length; i++) {
-                ps.setObject(i + 1, params[i]);
+            String resource = fetchBatch(key.providerID, key.type, Collections.singletonList(key)).get(evidenceUID);
+            return resource == null ? null : new RawJsonResource(resource);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error on evidence retrieval", e);
+        }
+    }
+
+    /**
+     * Retrieves the FHIR resources for multiple evidence UIDs. UIDs are grouped by evidence provider and clinical
+     * entity type so that each group is retrieved via a small number of multi-key queries, and groups are retrieved
+     * concurrently.
+     *
+     * @param evidenceUIDs The evidence UIDs to retrieve
+     * @return A map of evidence UID to FHIR resource JSON, with a null value for any UID that could not be found
+     */
+    public Map<String, RawJsonResource> getEvidenceForUIDs(Collection<String> evidenceUIDs) {
+        Map<String, RawJsonResource> ret = new HashMap<>();
+        Map<String, Map<ClinicalEntityType, List<EvidenceKey>>> groups = new LinkedHashMap<>();
+        for (String evidenceUID : new LinkedHashSet<>(evidenceUIDs)) {
+            String cached = getCachedResource(evidenceUID);
+            if (cached != null) {
+                ret.put(evidenceUID, new RawJsonResource(cached));
+                continue;
             }
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                // Map to Beam Row Schema
-                Schema beamSchema = provider.getQuerySchema(type);
-                List<Object> values = new ArrayList<>();
-                for (String fieldName : beamSchema.getFieldNames()) {
-                    Object val = rs.getObject(fieldName);
-                    if (beamSchema.getField(fieldName).getType().getTypeName().isDateType()) {
-                        values.add(DateTime.parse(val.toString()));
-                    } else if (beamSchema.getField(fieldName).getType().getTypeName().equals(Schema.TypeName.FLOAT)) {
-                        values.add(Float.parseFloat(rs.getObject(fieldName) + "")); // Handle some oddities with downward conversions
-                    } else {
-                        values.add(rs.getObject(fieldName));
-                    }
+            EvidenceKey key = EvidenceKey.parse(evidenceUID);
+            if (!resourceProviders.containsKey(key.providerID)) {
+                throw new IllegalArgumentException("Unknown evidence provider " + key.providerID + " for evidence " + evidenceUID);
+            }
+            groups.computeIfAbsent(key.providerID, k -> new HashMap<>())
+                    .computeIfAbsent(key.type, k -> new ArrayList<>())
+                    .add(key);
+        }
+        List<Future<Map<String, String>>> pending = new ArrayList<>();
+        try {
+            groups.forEach((providerID, byType) -> byType.forEach((type, keys) -> {
+                for (int i = 0; i < keys.size(); i += batchSize) {
+                    List<EvidenceKey> batch = keys.subList(i, Math.min(keys.size(), i + batchSize));
+                    pending.add(fetchExecutor.submit(() -> fetchBatch(providerID, type, batch)));
                 }
-                Row r = Row.withSchema(beamSchema).addValues(values).build();
-                // And now call the appropriate mapping function
-                return om.get().readTree(context.newJsonParser().encodeResourceToString(provider.getRowToResourceMapper(type).apply(r)));
+            }));
+            for (Future<Map<String, String>> batchResult : pending) {
+                batchResult.get().forEach((evidenceUID, resource) -> ret.put(evidenceUID, new RawJsonResource(resource)));
             }
-        } catch (SQLException e) {
-            e.printStackTrace(); // TODO
-        } catch (JsonProcessingException e) {
+            for (String evidenceUID : evidenceUIDs) {
+                ret.putIfAbsent(evidenceUID, null);
+            }
+            return ret;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error on evidence retrieval", e.getCause());
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+        }
+    }
+
+    // Retrieves a batch of evidence of a single provider and type. Because evidence ID filters are opaque to us, the
+    // per-ID query is repeated for each ID and combined via UNION ALL, tagging each row with the index of the ID
+    // that produced it. Batches are padded up to a power of two by repeating the last ID so that only a few distinct
+    // statements exist per provider and type, allowing them to be reused from each connection's statement cache.
+    // Failures are thrown rather than returned as missing evidence so that they reach the caller
+    private Map<String, String> fetchBatch(String providerID, ClinicalEntityType type, List<EvidenceKey> keys) throws SQLException {
+        ResourceProvider provider = resourceProviders.get(providerID);
+        int bucketSize = batchBucketSize(keys.size());
+        Map<String, String> ret = new HashMap<>();
+        // Closing the statement returns it to the connection's statement cache
+        try (Connection conn = dataSources.get(providerID).getConnection();
+             PreparedStatement ps = conn.prepareStatement(getBatchQuery(providerID, type, bucketSize))) {
+            int paramIdx = 1;
+            for (int i = 0; i < bucketSize; i++) {
+                EvidenceKey key = keys.get(Math.min(i, keys.size() - 1));
+                for (Object param : provider.parseIDTagToParams(type, key.id)) {
+                    ps.setObject(paramIdx++, param);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                EvidenceRowMapper mapper = getRowMapper(provider, providerID, type, rs.getMetaData());
+                while (rs.next()) {
+                    String evidenceUID = keys.get(Math.min(rs.getInt(1), keys.size() - 1)).evidenceUID;
+                    if (!ret.containsKey(evidenceUID)) {
+                        String resource = serializeResource(provider, type, mapper.map(rs));
+                        resourceCache.put(evidenceUID, resource);
+                        ret.put(evidenceUID, resource);
+                    }
+                }
+            }
         }
-        return null;
+        return ret;
+    }
+
+    private int batchBucketSize(int size) {
+        int bucket = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.min(Math.max(batchSize, size), bucket);
+    }
+
+    private String getBatchQuery(String providerID, ClinicalEntityType type, int bucketSize) {
+        return batchQueries.computeIfAbsent(providerID + ":" + type.name() + ":" + bucketSize, k -> {
+            String resourceQuery = resourceQueries.get(providerID).get(type);
+            List<String> branches = new ArrayList<>();
+            for (int i = 0; i < bucketSize; i++) {
+                branches.add("SELECT " + i + " AS cat_batch_idx, " + resourceQuery);
+            }
+            return String.join(" UNION ALL ", branches);
+        });
+    }
+
+    // Every batch query for a provider and type shares the same column layout, so the mapper is resolved only once
+    private EvidenceRowMapper getRowMapper(ResourceProvider provider, String providerID, ClinicalEntityType type, ResultSetMetaData metadata) throws SQLException {
+        String key = providerID + ":" + type.name();
+        EvidenceRowMapper mapper = rowMappers.get(key);
+        if (mapper == null) {
+            mapper = new EvidenceRowMapper(provider.getQuerySchema(type), metadata);
+            rowMappers.put(key, mapper);
+        }
+        return mapper;
+    }
+
+    private String getCachedResource(String evidenceUID) {
+        String ret = resourceCache.get(evidenceUID);
+        if (ret == null && diskCache != null) {
+            byte[] spilled = diskCache.get(evidenceUID);
+            if (spilled != null) {
+                ret = new String(spilled, StandardCharsets.UTF_8);
+                resourceCache.put(evidenceUID, ret); // Promote back to memory
+            }
+        }
+        return ret;
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> ret = new HashMap<>();
+        ret.put("memory", resourceCache.getStats());
+        if (diskCache != null) {
+            ret.put("disk", diskCache.getStats());
+        }
+        return ret;
+    }
+
+    private String serializeResource(ResourceProvider provider, ClinicalEntityType type, Row r) {
+        // Call the appropriate mapping function
+        return context.newJsonParser().encodeResourceToString(provider.getRowToResourceMapper(type).apply(r));
+    }
+
+    // An evidence UID of the form provider:type:id, split into its components
+    private static class EvidenceKey {
+        private final String evidenceUID;
+        private final String providerID;
+        private final ClinicalEntityType type;
+        private final String id;
+
+        private EvidenceKey(String evidenceUID, String providerID, ClinicalEntityType type, String id) {
+            this.evidenceUID = evidenceUID;
+            this.providerID = providerID;
+            this.type = type;
+            this.id = id;
+        }
+
+        private static EvidenceKey parse(String evidenceUID) {
+            String id = evidenceUID;
+            if (id.split(":").length < 3) {
+                id = "ehr:" + id; // Legacy handling
+            }
+            // First parse out actual evidence ID/type
+            String providerID = id.substring(0, id.indexOf(":"));
+            id = id.substring(id.indexOf(":") + 1);
+            ClinicalEntityType type = ClinicalEntityType.valueOf(id.substring(0, id.indexOf(":")));
+            id = id.substring(id.indexOf(":") + 1);
+            return new EvidenceKey(evidenceUID, providerID, type, id);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        fetchExecutor.shutdownNow();
+        dataSources.values().forEach(ComboPooledDataSource::close);
     }
 }
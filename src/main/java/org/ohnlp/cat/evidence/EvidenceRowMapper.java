@@ -0,0 +1,84 @@
+package org.ohnlp.cat.evidence;
+
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.values.Row;
+import org.joda.time.DateTime;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Maps result set rows of a resource provider query to Beam rows of its query schema. Column positions and per-field
+ * value converters are resolved once from the result set metadata so that mapping a row involves no name lookups or
+ * type checks.
+ */
+class EvidenceRowMapper {
+    private final Schema schema;
+    private final int[] columnIdxs;
+    private final Function<Object, Object>[] converters;
+
+    @SuppressWarnings("unchecked")
+    EvidenceRowMapper(Schema schema, ResultSetMetaData metadata) throws SQLException {
+        this.schema = schema;
+        this.columnIdxs = new int[schema.getFieldCount()];
+        this.converters = new Function[schema.getFieldCount()];
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+            Schema.Field field = schema.getField(i);
+            columnIdxs[i] = findColumn(metadata, field.getName());
+            converters[i] = converterFor(field.getType().getTypeName());
+        }
+    }
+
+    Row map(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columnIdxs.length];
+        for (int i = 0; i < columnIdxs.length; i++) {
+            values[i] = converters[i].apply(rs.getObject(columnIdxs[i]));
+        }
+        return Row.withSchema(schema).addValues(values).build();
+    }
+
+    // Column labels are matched case-insensitively, consistent with ResultSet#getObject(String)
+    private static int findColumn(ResultSetMetaData metadata, String fieldName) throws SQLException {
+        for (int i = 1; i <= metadata.getColumnCount(); i++) {
+            if (metadata.getColumnLabel(i).equalsIgnoreCase(fieldName)) {
+                return i;
+            }
+        }
+        throw new SQLException("Resource query does not return a column for schema field " + fieldName);
+    }
+
+    private static Function<Object, Object> converterFor(Schema.TypeName typeName) {
+        if (typeName.isDateType()) {
+            return EvidenceRowMapper::toDateTime;
+        } else if (typeName.equals(Schema.TypeName.FLOAT)) {
+            // Handle some oddities with downward conversions
+            return val -> val == null ? null : val instanceof Number ? ((Number) val).floatValue() : Float.parseFloat(val.toString());
+        } else {
+            return Function.identity();
+        }
+    }
+
+    // JDBC drivers return dates as java.sql/java.time types, so convert directly rather than reparsing their string forms
+    private static Object toDateTime(Object val) {
+        if (val == null) {
+            return null;
+        } else if (val instanceof Date) {
+            return new DateTime(((Date) val).getTime());
+        } else if (val instanceof LocalDateTime) {
+            return new DateTime(Timestamp.valueOf((LocalDateTime) val).getTime());
+        } else if (val instanceof LocalDate) {
+            return new DateTime(java.sql.Date.valueOf((LocalDate) val).getTime());
+        } else if (val instanceof OffsetDateTime) {
+            return new DateTime(((OffsetDateTime) val).toInstant().toEpochMilli());
+        } else {
+            return DateTime.parse(val.toString());
+        }
+    }
+}
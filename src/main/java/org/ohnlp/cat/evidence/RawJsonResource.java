@@ -0,0 +1,34 @@
+package org.ohnlp.cat.evidence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * A FHIR resource already serialized to JSON by the HAPI encoder. Written verbatim by Jackson so that resources are
+ * not parsed back into a tree only to be serialized again.
+ */
+public class RawJsonResource implements JsonSerializable {
+    private final String json;
+
+    public RawJsonResource(String json) {
+        this.json = json;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,12 @@
+package org.ohnlp.cat.executors;
+
+/**
+ * Coarse job states as reported by a {@link JobExecutor}
+ */
+public enum ExecutorJobState {
+    // Submitted and not yet in a terminal state, including jobs still being scheduled or restarting
+    RUNNING,
+    FINISHED,
+    FAILED,
+    CANCELED
+}
@@ -12,6 +12,7 @@ import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -20,8 +21,12 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import javax.annotation.PreDestroy;
 import java.io.File;
-import java.util.Locale;
-import java.util.UUID;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
 
 
 @Component
@@ -29,13 +34,18 @@ public class FlinkExecutor implements JobExecutor {
 
     private final ExecutorConfig config;
     private final RestTemplate flink;
+    // Used for calls RestTemplate cannot make, shared as each client holds its own connection pool and threads
+    private final HttpClient http;
     private final String backendFlinkJarUID;
 
     @Autowired
     public FlinkExecutor(ExecutorConfig config) {
         this.config = config;
-        this.flink = new RestTemplate();
+        this.flink = new RestTemplate(requestFactory(config.getConnectTimeoutMillis(), config.getRequestTimeoutMillis()));
         flink.setUriTemplateHandler(new DefaultUriBuilderFactory(config.restEndpointURI));
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMillis()))
+                .build();
         if (config.uploadJarFromLocal) {
             backendFlinkJarUID = uploadJobJar();
         } else {
@@ -43,6 +53,14 @@ public class FlinkExecutor implements JobExecutor {
         }
     }
 
+    // A hung JobManager must not block the reconciler or dispatcher indefinitely, so all calls are bounded
+    private static SimpleClientHttpRequestFactory requestFactory(long connectTimeoutMillis, long readTimeoutMillis) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, connectTimeoutMillis));
+        factory.setReadTimeout((int) Math.min(Integer.MAX_VALUE, readTimeoutMillis));
+        return factory;
+    }
+
     private String uploadJobJar() {
         // Upload the JAR to cluster. Flink requires the application/x-java-archive header
         HttpHeaders headers = new HttpHeaders();
@@ -51,7 +69,10 @@ public class FlinkExecutor implements JobExecutor {
                 = new LinkedMultiValueMap<>();
         body.add("file", new FileSystemResource(new File(config.backendJarPath)));
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-        JsonNode jarInfo = this.flink.postForObject("/jars/upload", requestEntity, JsonNode.class);
+        // Uploading a large JAR may legitimately take longer than the request timeout, so only bound the connection
+        RestTemplate upload = new RestTemplate(requestFactory(config.getConnectTimeoutMillis(), 0));
+        upload.setUriTemplateHandler(new DefaultUriBuilderFactory(config.restEndpointURI));
+        JsonNode jarInfo = upload.postForObject("/jars/upload", requestEntity, JsonNode.class);
         if (jarInfo != null && jarInfo.has("filename")) {
             String filename =  jarInfo.get("filename").asText(); // filename is the JAR ID for flink API calls
             return filename.substring(filename.lastIndexOf("/") + 1);
@@ -62,6 +83,11 @@ public class FlinkExecutor implements JobExecutor {
 
     @Override
     public String startJob(UUID jobUID, Criterion criterion, String callbackURL) throws Exception {
+        return startJob(jobUID, criterion, callbackURL, new JobExecutionOptions());
+    }
+
+    @Override
+    public String startJob(UUID jobUID, Criterion criterion, String callbackURL, JobExecutionOptions options) throws Exception {
         ObjectNode requestBody = JsonNodeFactory.instance.objectNode();
         requestBody.put("entryClass", "org.ohnlp.ir.cat.CohortIdentificationJob");
         String[] opts = {
@@ -69,12 +95,19 @@ public class FlinkExecutor implements JobExecutor {
                 "--callback=" + callbackURL,
                 "--jobid=" + jobUID.toString().toLowerCase(Locale.ROOT)
         };
-        ArrayNode argArr = JsonNodeFactory.instance.arrayNode(3);
+        ArrayNode argArr = JsonNodeFactory.instance.arrayNode(4);
         for (String s : opts) {
             argArr.add(s);
         }
+        if (options.getReusedNodesArg() != null) {
+            // Never silently drop the argument: the copied results would be duplicated by the backend
+            if (!supportsReusedNodes()) {
+                throw new IllegalArgumentException("Job " + jobUID + " has reused nodes but the backend is not configured to support them");
+            }
+            argArr.add(options.getReusedNodesArg());
+        }
         requestBody.set("programArgsList", argArr);
-        requestBody.put("parallelism", config.getJobParallelism());
+        requestBody.put("parallelism", options.getParallelism() > 0 ? options.getParallelism() : config.getJobParallelism());
         JsonNode job = flink.postForObject("/jars/" + backendFlinkJarUID + "/run", requestBody, JsonNode.class);
         if (job == null || !job.has("jobid")) {
             throw new Exception("Job Start on Flink Cluster Failed!");
@@ -83,6 +116,69 @@ public class FlinkExecutor implements JobExecutor {
         }
     }
 
+    @Override
+    public boolean supportsReusedNodes() {
+        return config.isBackendSupportsReusedNodes();
+    }
+
+    @Override
+    public int getAvailableSlots() {
+        JsonNode overview = flink.getForObject("/overview", JsonNode.class);
+        if (overview == null || !overview.has("slots-available")) {
+            return -1;
+        }
+        return overview.get("slots-available").asInt();
+    }
+
+    @Override
+    public boolean supportsJobStates() {
+        return true;
+    }
+
+    @Override
+    public Map<String, ExecutorJobState> getJobStates(Collection<String> executorJobUIDs) {
+        Set<String> requested = new HashSet<>(executorJobUIDs);
+        Map<String, ExecutorJobState> ret = new HashMap<>();
+        // A single overview call covers all jobs known to the cluster, rather than one call per job
+        JsonNode overview = flink.getForObject("/jobs/overview", JsonNode.class);
+        if (overview == null || !overview.has("jobs")) {
+            return ret;
+        }
+        for (JsonNode job : overview.get("jobs")) {
+            String jid = job.path("jid").asText();
+            if (requested.contains(jid)) {
+                ret.put(jid, toExecutorJobState(job.path("state").asText()));
+            }
+        }
+        return ret;
+    }
+
+    private static ExecutorJobState toExecutorJobState(String flinkState) {
+        switch (flinkState) {
+            case "FINISHED":
+                return ExecutorJobState.FINISHED;
+            case "FAILED":
+                return ExecutorJobState.FAILED;
+            case "CANCELED":
+                return ExecutorJobState.CANCELED;
+            default:
+                return ExecutorJobState.RUNNING;
+        }
+    }
+
+    @Override
+    public void cancelJob(String executorJobUID) throws Exception {
+        // RestTemplate's default request factory does not support PATCH, so use the JDK client for this call
+        HttpRequest request = HttpRequest.newBuilder(URI.create(config.getRestEndpointURI() + "/jobs/" + executorJobUID + "?mode=cancel"))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new Exception("Cancel of Flink job " + executorJobUID + " failed with status " + response.statusCode() + ": " + response.body());
+        }
+    }
+
     @PreDestroy
     public void destroy() {
         if (config.uploadJarFromLocal) {
@@ -98,6 +194,11 @@ public class FlinkExecutor implements JobExecutor {
         private String jarUID;
         private String backendJarPath;
         private int jobParallelism;
+        // Whether the backend JAR accepts --reusedNodes, see JobExecutionOptions#getReusedNodesArg
+        private boolean backendSupportsReusedNodes;
+        // Timeouts for establishing a connection to and awaiting a response from the REST endpoint
+        private long connectTimeoutMillis = 10000;
+        private long requestTimeoutMillis = 30000;
 
         public String getRestEndpointURI() {
             return restEndpointURI;
@@ -138,5 +239,29 @@ public class FlinkExecutor implements JobExecutor {
         public void setJobParallelism(int jobParallelism) {
             this.jobParallelism = jobParallelism;
         }
+
+        public boolean isBackendSupportsReusedNodes() {
+            return backendSupportsReusedNodes;
+        }
+
+        public void setBackendSupportsReusedNodes(boolean backendSupportsReusedNodes) {
+            this.backendSupportsReusedNodes = backendSupportsReusedNodes;
+        }
+
+        public long getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        public long getRequestTimeoutMillis() {
+            return requestTimeoutMillis;
+        }
+
+        public void setRequestTimeoutMillis(long requestTimeoutMillis) {
+            this.requestTimeoutMillis = requestTimeoutMillis;
+        }
     }
 }
@@ -0,0 +1,42 @@
+package org.ohnlp.cat.executors;
+
+import java.util.UUID;
+
+/**
+ * Receives the outcome of an asynchronous job submission made via {@link JobExecutorManager#dispatch}, used to record
+ * status transitions against the job's persisted record
+ */
+public interface JobDispatchCallback {
+    /**
+     * Checked prior to each submission attempt, so that jobs cancelled while waiting to be submitted are skipped
+     *
+     * @return Whether the job is still awaiting submission
+     * @throws Exception If the job's state could not be determined
+     */
+    boolean isAwaitingDispatch() throws Exception;
+
+    /**
+     * Called once the executor has accepted the job
+     *
+     * @param executorJobUID The executor-local job ID, or null if the executor does not provide one
+     * @throws Exception If the outcome could not be recorded
+     */
+    void onStarted(String executorJobUID) throws Exception;
+
+    /**
+     * Called once all submission attempts have been exhausted
+     *
+     * @param cause The error encountered on the final attempt
+     * @throws Exception If the outcome could not be recorded
+     */
+    void onFailed(Throwable cause) throws Exception;
+
+    /**
+     * Polled periodically for submitted jobs, so that concurrency slots held by jobs that completed without
+     * notifying {@link JobExecutorManager#onJobTerminated(UUID)} are released
+     *
+     * @return Whether the job has completed, failed, or been cancelled
+     * @throws Exception If the job's state could not be determined
+     */
+    boolean hasTerminated() throws Exception;
+}
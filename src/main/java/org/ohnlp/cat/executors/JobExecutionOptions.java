@@ -0,0 +1,57 @@
+package org.ohnlp.cat.executors;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-job execution settings determined by the middleware at submission time
+ */
+public class JobExecutionOptions {
+    // Requested parallelism for the job, 0 or less to use the executor's configured default
+    private int parallelism;
+    // Criterion nodes whose results have already been copied from a prior job and need not be re-executed
+    private Map<UUID, ReusedNodeResult> reusedNodes = Collections.emptyMap();
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public Map<UUID, ReusedNodeResult> getReusedNodes() {
+        return reusedNodes;
+    }
+
+    public void setReusedNodes(Map<UUID, ReusedNodeResult> reusedNodes) {
+        this.reusedNodes = reusedNodes == null ? Collections.emptyMap() : reusedNodes;
+    }
+
+    /**
+     * Formats the reused nodes as a backend program argument, a JSON object keyed by the lowercase UID of each reused
+     * node of this job whose values hold the lowercase jobUID and nodeUID the results were copied from. A backend
+     * accepting this argument must register it as the reusedNodes pipeline option and must not evaluate or write
+     * EVIDENCE for the listed nodes, as their results are already present under this job. It must only be passed to
+     * executors for which {@link JobExecutor#supportsReusedNodes()} holds.
+     *
+     * @return The reused nodes as a backend program argument, or null if there are none
+     */
+    public String getReusedNodesArg() {
+        if (reusedNodes.isEmpty()) {
+            return null;
+        }
+        ObjectNode ret = JsonNodeFactory.instance.objectNode();
+        reusedNodes.forEach((nodeUID, source) -> {
+            ObjectNode sourceNode = ret.putObject(nodeUID.toString().toLowerCase(Locale.ROOT));
+            sourceNode.put("jobUID", source.getJobUID().toString().toLowerCase(Locale.ROOT));
+            sourceNode.put("nodeUID", source.getNodeUID().toString().toLowerCase(Locale.ROOT));
+        });
+        return "--reusedNodes=" + ret;
+    }
+}
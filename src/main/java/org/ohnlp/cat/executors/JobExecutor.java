@@ -2,6 +2,9 @@ package org.ohnlp.cat.executors;
 
 import org.ohnlp.cat.api.criteria.Criterion;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 
 public interface JobExecutor {
@@ -17,4 +20,69 @@ public interface JobExecutor {
      * @throws Exception - If error occurs during the Job Scheduling Process
      */
     String startJob(UUID jobUID, Criterion criterion, String callbackURL) throws Exception;
+
+    /**
+     * Queues a job as per {@link #startJob(UUID, Criterion, String)} using the supplied execution options. Executors
+     * that do not support per-job options may ignore them.
+     *
+     * @param jobUID      The UUID of the Job
+     * @param criterion   The criterion associated with the job
+     * @param callbackURL The URL of the middleware server scheduling this job
+     * @param options     Execution settings for this job
+     * @return The executor-local job ID (different from the middleware-tracking job ID) if provided by the executor,
+     * null otherwise.
+     * @throws Exception - If error occurs during the Job Scheduling Process
+     */
+    default String startJob(UUID jobUID, Criterion criterion, String callbackURL, JobExecutionOptions options) throws Exception {
+        return startJob(jobUID, criterion, callbackURL);
+    }
+
+    /**
+     * Whether the backend run by this executor accepts the reused node argument, see
+     * {@link JobExecutionOptions#getReusedNodesArg()}. The backend cannot be queried for this, so support must be
+     * declared by configuration: backends that do not register the option refuse to start, and backends that ignore
+     * it re-evaluate and duplicate the copied results.
+     *
+     * @return True if jobs on this executor may be submitted with reused nodes
+     */
+    default boolean supportsReusedNodes() {
+        return false;
+    }
+
+    /**
+     * @return The number of task slots currently free on the executor's cluster, or -1 if not known
+     * @throws Exception - If error occurs while retrieving cluster state
+     */
+    default int getAvailableSlots() throws Exception {
+        return -1;
+    }
+
+    /**
+     * @return True if {@link #getJobStates(Collection)} is supported, such that a job omitted from its result is
+     * genuinely unknown to the executor
+     */
+    default boolean supportsJobStates() {
+        return false;
+    }
+
+    /**
+     * Retrieves the current state of multiple jobs at once
+     *
+     * @param executorJobUIDs The executor-local job IDs as returned by {@link #startJob(UUID, Criterion, String)}
+     * @return The state of each job known to the executor. Jobs the executor has no record of are omitted, as are all
+     * jobs if the executor does not support status retrieval
+     * @throws Exception - If error occurs while retrieving job states
+     */
+    default Map<String, ExecutorJobState> getJobStates(Collection<String> executorJobUIDs) throws Exception {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Stops a running job, if supported by the executor
+     *
+     * @param executorJobUID The executor-local job ID as returned by {@link #startJob(UUID, Criterion, String)}
+     * @throws Exception - If error occurs during job cancellation
+     */
+    default void cancelJob(String executorJobUID) throws Exception {
+    }
 }
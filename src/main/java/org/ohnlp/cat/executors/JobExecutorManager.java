@@ -1,20 +1,358 @@
 package org.ohnlp.cat.executors;
 
 import org.ohnlp.cat.ApplicationConfiguration;
+import org.ohnlp.cat.api.criteria.Criterion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules cohort identification jobs onto the configured {@link JobExecutor}. Jobs are admitted subject to global and
+ * per-project concurrency limits, with waiting jobs admitted round-robin across users so that no single user can
+ * monopolize the executor. Admitted jobs are submitted in the background with retries.
+ * <br/>
+ * If local execution is enabled, jobs whose cohort is expected to be small are instead routed to the in-process
+ * {@link LocalExecutor}, which bounds its own concurrency and so bypasses admission control.
+ */
 @Component
 public class JobExecutorManager {
     private final JobExecutor executor;
+    private final LocalExecutor localExecutor;
+    private final ApplicationConfiguration.JobDispatch dispatchConfig;
+    private final ScheduledExecutorService dispatcher;
+
+    // Scheduler state, guarded by schedulerLock. Waiting jobs are queued per user, with users ordered by
+    // when they were last served
+    private final Object schedulerLock = new Object();
+    private final LinkedHashMap<String, Deque<ScheduledJob>> waitingByUser = new LinkedHashMap<>();
+    private final Map<UUID, ScheduledJob> running = new HashMap<>();
+    private final Map<UUID, Integer> runningByProject = new HashMap<>();
+
     @Autowired
     public JobExecutorManager(ApplicationConfiguration config, ApplicationContext appContext) throws ClassNotFoundException {
         String jobExecutorClazz = config.getJobExecutorClass();
         executor = (JobExecutor) appContext.getBean(Class.forName(jobExecutorClazz));
+        this.dispatchConfig = config.getJobDispatch();
+        // Always available so that jobs previously run locally can be tracked and cancelled after local execution is
+        // disabled
+        this.localExecutor = appContext.getBean(LocalExecutor.class);
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(Math.max(1, dispatchConfig.getDispatcherThreads()), r -> {
+            Thread t = new Thread(r, "job-dispatch-" + threadIdx.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (dispatchConfig.getTerminationCheckSeconds() > 0) {
+            this.dispatcher.scheduleWithFixedDelay(this::releaseTerminatedJobs,
+                    dispatchConfig.getTerminationCheckSeconds(), dispatchConfig.getTerminationCheckSeconds(), TimeUnit.SECONDS);
+        }
     }
 
     public JobExecutor getExecutor() {
         return executor;
     }
+
+    /**
+     * @param cohortSize The estimated number of patients in the job's resulting cohort, or -1 if not known
+     * @return Whether the executor a job of the given cohort size would be dispatched to accepts reused nodes
+     */
+    public boolean supportsReusedNodes(long cohortSize) {
+        return (routesLocally(cohortSize) ? localExecutor : executor).supportsReusedNodes();
+    }
+
+    private boolean routesLocally(long cohortSize) {
+        return dispatchConfig.isLocalExecutionEnabled() && cohortSize >= 0 && cohortSize <= dispatchConfig.getLocalMaxCohortSize();
+    }
+
+    /**
+     * Queues a job for submission to the executor. The job is submitted in the background once admitted by the
+     * scheduler, retrying with exponential backoff on failure. The outcome is reported via the supplied callback.
+     *
+     * @param jobUID      The UUID of the Job
+     * @param projectUID  The UUID of the project the job belongs to
+     * @param userUID     The user that requested the job
+     * @param criterion   The criterion associated with the job
+     * @param callbackURL The URL of the middleware server scheduling this job
+     * @param cohortSize  The estimated number of patients in the resulting cohort, or -1 if not known
+     * @param reusedNodes Criterion nodes whose results were copied from prior jobs and need not be re-executed
+     * @param callback    Receives the outcome of the submission
+     */
+    public void dispatch(UUID jobUID, UUID projectUID, String userUID, Criterion criterion, String callbackURL, long cohortSize,
+                         Map<UUID, ReusedNodeResult> reusedNodes, JobDispatchCallback callback) {
+        if (routesLocally(cohortSize)) {
+            System.out.println("Routing job " + jobUID + " with estimated cohort size " + cohortSize + " to local execution");
+            ScheduledJob job = new ScheduledJob(jobUID, projectUID, userUID, criterion, callbackURL, reusedNodes, callback, localExecutor);
+            dispatcher.execute(() -> attemptDispatch(job, 1));
+            return;
+        }
+        ScheduledJob job = new ScheduledJob(jobUID, projectUID, userUID, criterion, callbackURL, reusedNodes, callback, executor);
+        synchronized (schedulerLock) {
+            waitingByUser.computeIfAbsent(userUID, k -> new ArrayDeque<>()).add(job);
+        }
+        admitWaitingJobs();
+    }
+
+    /**
+     * Releases the concurrency slot held by a job (or removes it from the wait queue) once it has completed, failed,
+     * or been cancelled
+     *
+     * @param jobUID The UUID of the Job
+     */
+    public void onJobTerminated(UUID jobUID) {
+        synchronized (schedulerLock) {
+            ScheduledJob job = running.remove(jobUID);
+            if (job != null) {
+                runningByProject.computeIfPresent(job.projectUID, (k, v) -> v > 1 ? v - 1 : null);
+            } else {
+                Iterator<Deque<ScheduledJob>> queues = waitingByUser.values().iterator();
+                while (queues.hasNext()) {
+                    Deque<ScheduledJob> queue = queues.next();
+                    queue.removeIf(waiting -> waiting.jobUID.equals(jobUID));
+                    if (queue.isEmpty()) {
+                        queues.remove();
+                    }
+                }
+            }
+        }
+        admitWaitingJobs();
+    }
+
+    /**
+     * Stops a submitted job on the executor in the background and releases its concurrency slot
+     *
+     * @param jobUID         The UUID of the Job
+     * @param executorJobUID The executor-local job ID
+     */
+    public void cancel(UUID jobUID, String executorJobUID) {
+        onJobTerminated(jobUID);
+        dispatcher.execute(() -> {
+            try {
+                (isLocalJob(executorJobUID) ? localExecutor : executor).cancelJob(executorJobUID);
+            } catch (Throwable t) {
+                System.out.println("Failed to cancel executor job " + executorJobUID + " for job " + jobUID);
+                t.printStackTrace(); // TODO log exceptions to DB
+            }
+        });
+    }
+
+    /**
+     * Retrieves the current state of submitted jobs from whichever executor each was submitted to
+     *
+     * @param executorJobUIDs The executor-local job IDs
+     * @return The state of each job known to its executor
+     * @throws Exception If job states could not be retrieved
+     */
+    public Map<String, ExecutorJobState> getJobStates(Collection<String> executorJobUIDs) throws Exception {
+        List<String> remote = new ArrayList<>();
+        List<String> local = new ArrayList<>();
+        for (String executorJobUID : executorJobUIDs) {
+            (isLocalJob(executorJobUID) ? local : remote).add(executorJobUID);
+        }
+        Map<String, ExecutorJobState> ret = new HashMap<>();
+        if (!local.isEmpty()) {
+            ret.putAll(localExecutor.getJobStates(local));
+        }
+        if (!remote.isEmpty()) {
+            ret.putAll(executor.getJobStates(remote));
+        }
+        return ret;
+    }
+
+    /**
+     * @param executorJobUID The executor-local job ID
+     * @return Whether the executor running the job reports job states, see {@link JobExecutor#supportsJobStates()}
+     */
+    public boolean supportsJobStates(String executorJobUID) {
+        return (isLocalJob(executorJobUID) ? localExecutor : executor).supportsJobStates();
+    }
+
+    private boolean isLocalJob(String executorJobUID) {
+        return executorJobUID.startsWith(LocalExecutor.JOB_ID_PREFIX);
+    }
+
+    /**
+     * @return The number of jobs currently holding a concurrency slot and the number waiting for one
+     */
+    public Map<String, Integer> getSchedulerState() {
+        synchronized (schedulerLock) {
+            Map<String, Integer> ret = new HashMap<>();
+            ret.put("running", running.size());
+            ret.put("waiting", waitingByUser.values().stream().mapToInt(Deque::size).sum());
+            return ret;
+        }
+    }
+
+    private void admitWaitingJobs() {
+        List<ScheduledJob> admitted = new ArrayList<>();
+        synchronized (schedulerLock) {
+            boolean progress = true;
+            while (progress && hasGlobalCapacity()) {
+                progress = false;
+                // Admit at most one job per user per pass, then move served users to the back of the rotation
+                List<String> served = new ArrayList<>();
+                Iterator<Map.Entry<String, Deque<ScheduledJob>>> users = waitingByUser.entrySet().iterator();
+                while (users.hasNext() && hasGlobalCapacity()) {
+                    Map.Entry<String, Deque<ScheduledJob>> user = users.next();
+                    ScheduledJob job = pollAdmissible(user.getValue());
+                    if (job != null) {
+                        running.put(job.jobUID, job);
+                        runningByProject.merge(job.projectUID, 1, Integer::sum);
+                        admitted.add(job);
+                        served.add(user.getKey());
+                        progress = true;
+                    }
+                    if (user.getValue().isEmpty()) {
+                        users.remove();
+                    }
+                }
+                for (String user : served) {
+                    Deque<ScheduledJob> queue = waitingByUser.remove(user);
+                    if (queue != null) {
+                        waitingByUser.put(user, queue);
+                    }
+                }
+            }
+        }
+        for (ScheduledJob job : admitted) {
+            dispatcher.execute(() -> attemptDispatch(job, 1));
+        }
+    }
+
+    // Must be called while holding schedulerLock
+    private boolean hasGlobalCapacity() {
+        return dispatchConfig.getMaxConcurrentJobs() <= 0 || running.size() < dispatchConfig.getMaxConcurrentJobs();
+    }
+
+    // Must be called while holding schedulerLock. Returns the user's oldest job whose project is under its limit
+    private ScheduledJob pollAdmissible(Deque<ScheduledJob> queue) {
+        Iterator<ScheduledJob> it = queue.iterator();
+        while (it.hasNext()) {
+            ScheduledJob job = it.next();
+            if (dispatchConfig.getMaxConcurrentJobsPerProject() <= 0
+                    || runningByProject.getOrDefault(job.projectUID, 0) < dispatchConfig.getMaxConcurrentJobsPerProject()) {
+                it.remove();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void attemptDispatch(ScheduledJob job, int attempt) {
+        try {
+            if (!job.callback.isAwaitingDispatch()) {
+                System.out.println("Skipping submission of job " + job.jobUID + " as it is no longer queued");
+                onJobTerminated(job.jobUID);
+                return;
+            }
+        } catch (Throwable t) {
+            // Could not read job state, fall through and attempt submission anyways
+            t.printStackTrace();
+        }
+        String executorJobUID;
+        try {
+            JobExecutionOptions options = job.executor == executor ? getExecutionOptions() : new JobExecutionOptions();
+            options.setReusedNodes(job.reusedNodes);
+            executorJobUID = job.executor.startJob(job.jobUID, job.criterion, job.callbackURL, options);
+        } catch (Throwable t) {
+            if (attempt >= dispatchConfig.getMaxAttempts()) {
+                System.out.println("Job " + job.jobUID + " failed to start after " + attempt + " attempts");
+                t.printStackTrace();
+                try {
+                    job.callback.onFailed(t);
+                } catch (Throwable t2) {
+                    t2.printStackTrace(); // TODO log exceptions to DB
+                }
+                onJobTerminated(job.jobUID);
+                return;
+            }
+            long backoff = backoffMillis(attempt);
+            System.out.println("Job " + job.jobUID + " submission attempt " + attempt + " failed, retrying in " + backoff + "ms: " + t.getMessage());
+            dispatcher.schedule(() -> attemptDispatch(job, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+            return;
+        }
+        try {
+            job.callback.onStarted(executorJobUID);
+        } catch (Throwable t) {
+            // The job is running regardless at this point, so there is nothing to retry
+            t.printStackTrace(); // TODO log exceptions to DB
+        }
+    }
+
+    private JobExecutionOptions getExecutionOptions() {
+        JobExecutionOptions options = new JobExecutionOptions();
+        if (dispatchConfig.isDynamicParallelism()) {
+            try {
+                int available = executor.getAvailableSlots();
+                if (available >= 0) {
+                    int parallelism = Math.max(dispatchConfig.getMinParallelism(), available);
+                    if (dispatchConfig.getMaxParallelism() > 0) {
+                        parallelism = Math.min(parallelism, dispatchConfig.getMaxParallelism());
+                    }
+                    options.setParallelism(parallelism);
+                }
+            } catch (Throwable t) {
+                // Fall back to the executor default
+                System.out.println("Could not retrieve available executor slots: " + t.getMessage());
+            }
+        }
+        return options;
+    }
+
+    private long backoffMillis(int attempt) {
+        long backoff = dispatchConfig.getInitialBackoffMillis() << Math.min(attempt - 1, 30);
+        return Math.min(backoff, dispatchConfig.getMaxBackoffMillis());
+    }
+
+    // Jobs may complete without going through this middleware instance (e.g. status written by the backend directly),
+    // so periodically check whether running jobs have terminated
+    private void releaseTerminatedJobs() {
+        List<ScheduledJob> toCheck;
+        synchronized (schedulerLock) {
+            toCheck = new ArrayList<>(running.values());
+        }
+        for (ScheduledJob job : toCheck) {
+            try {
+                if (job.callback.hasTerminated()) {
+                    onJobTerminated(job.jobUID);
+                }
+            } catch (Throwable t) {
+                t.printStackTrace(); // TODO log exceptions to DB
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        dispatcher.shutdownNow();
+    }
+
+    private static class ScheduledJob {
+        private final UUID jobUID;
+        private final UUID projectUID;
+        private final String userUID;
+        private final Criterion criterion;
+        private final String callbackURL;
+        private final Map<UUID, ReusedNodeResult> reusedNodes;
+        private final JobDispatchCallback callback;
+        private final JobExecutor executor;
+
+        private ScheduledJob(UUID jobUID, UUID projectUID, String userUID, Criterion criterion, String callbackURL,
+                             Map<UUID, ReusedNodeResult> reusedNodes, JobDispatchCallback callback, JobExecutor executor) {
+            this.jobUID = jobUID;
+            this.projectUID = projectUID;
+            this.userUID = userUID;
+            this.criterion = criterion;
+            this.callbackURL = callbackURL;
+            this.reusedNodes = reusedNodes;
+            this.callback = callback;
+            this.executor = executor;
+        }
+    }
 }
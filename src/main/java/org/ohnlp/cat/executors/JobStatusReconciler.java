@@ -0,0 +1,87 @@
+package org.ohnlp.cat.executors;
+
+import org.ohnlp.cat.ApplicationConfiguration;
+import org.ohnlp.cat.persistence.JDBCBackedStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically retrieves the state of all in-flight jobs from the job executor in a single call and records any that
+ * have finished, failed, or been cancelled, so that job status does not depend solely on backend callbacks. Jobs the
+ * executor no longer knows of are marked as failed once they have been missing for longer than a grace period
+ */
+@Component
+public class JobStatusReconciler {
+    private final JDBCBackedStorage storage;
+    private final JobExecutorManager jobExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long unknownJobGraceMillis;
+    // Executor-local job ID -> time at which the job was first found missing from the executor's reported states
+    private final Map<String, Long> missingSince = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobStatusReconciler(ApplicationConfiguration config, JDBCBackedStorage storage, JobExecutorManager jobExecutor) {
+        this.storage = storage;
+        this.jobExecutor = jobExecutor;
+        this.unknownJobGraceMillis = config.getJobDispatch().getUnknownJobGraceSeconds() * 1000L;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-status-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        int interval = config.getJobDispatch().getStatusReconcileSeconds();
+        if (interval > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    public void reconcile() {
+        try {
+            Map<String, UUID> inFlight = storage.getInFlightExecutorJobs();
+            if (inFlight.isEmpty()) {
+                return;
+            }
+            Map<String, ExecutorJobState> reported = jobExecutor.getJobStates(inFlight.keySet());
+            missingSince.keySet().retainAll(inFlight.keySet());
+            long now = System.currentTimeMillis();
+            Map<UUID, ExecutorJobState> states = new HashMap<>();
+            for (Map.Entry<String, UUID> job : inFlight.entrySet()) {
+                ExecutorJobState state = reported.get(job.getKey());
+                if (state == null && jobExecutor.supportsJobStates(job.getKey())) {
+                    // Newly submitted jobs may briefly be absent, so only give up on jobs missing for the grace period
+                    long since = missingSince.computeIfAbsent(job.getKey(), k -> now);
+                    if (unknownJobGraceMillis > 0 && now - since >= unknownJobGraceMillis) {
+                        System.out.println("Job " + job.getValue() + " is no longer known to the job executor, marking as failed");
+                        state = ExecutorJobState.FAILED;
+                    }
+                } else {
+                    missingSince.remove(job.getKey());
+                }
+                if (state != null && state != ExecutorJobState.RUNNING) {
+                    states.put(job.getValue(), state);
+                }
+            }
+            if (!states.isEmpty()) {
+                int updated = storage.applyExecutorJobStates(states);
+                System.out.println("Reconciled status of " + updated + " job(s) with the job executor");
+            }
+        } catch (Throwable t) {
+            // Retried on the next interval
+            t.printStackTrace(); // TODO log exceptions to DB
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
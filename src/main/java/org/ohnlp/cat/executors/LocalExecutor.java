@@ -0,0 +1,236 @@
+package org.ohnlp.cat.executors;
+
+import org.ohnlp.cat.api.criteria.Criterion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the cohort identification pipeline within the middleware process using the Beam DirectRunner. Avoids cluster
+ * submission and scheduling latency for small cohorts at the cost of sharing the middleware's resources, which are
+ * bounded by a fixed number of concurrently running jobs and a fixed per-job parallelism.
+ */
+@Component
+public class LocalExecutor implements JobExecutor {
+    // Prefix of executor job IDs issued by this executor, used to route status and cancellation requests
+    public static final String JOB_ID_PREFIX = "local-";
+
+    private final ExecutorConfig config;
+    private final ThreadPoolExecutor jobPool;
+    private final Map<String, Future<?>> jobs = new ConcurrentHashMap<>();
+    private volatile URLClassLoader backendClassLoader;
+
+    @Autowired
+    public LocalExecutor(ExecutorConfig config) {
+        this.config = config;
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.jobPool = new ThreadPoolExecutor(
+                Math.max(1, config.getMaxConcurrentJobs()), Math.max(1, config.getMaxConcurrentJobs()),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueDepth())),
+                r -> {
+                    Thread t = new Thread(r, "local-executor-" + threadIdx.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String startJob(UUID jobUID, Criterion criterion, String callbackURL) throws Exception {
+        return startJob(jobUID, criterion, callbackURL, new JobExecutionOptions());
+    }
+
+    @Override
+    public String startJob(UUID jobUID, Criterion criterion, String callbackURL, JobExecutionOptions options) throws Exception {
+        int parallelism = options.getParallelism() > 0 ? options.getParallelism() : config.getJobParallelism();
+        List<String> argList = new ArrayList<>(Arrays.asList(
+                "--runner=DirectRunner",
+                "--callback=" + callbackURL,
+                "--jobid=" + jobUID.toString().toLowerCase(Locale.ROOT),
+                "--targetParallelism=" + Math.max(1, parallelism)
+        ));
+        if (options.getReusedNodesArg() != null) {
+            // Never silently drop the argument: the copied results would be duplicated by the backend
+            if (!supportsReusedNodes()) {
+                throw new IllegalArgumentException("Job " + jobUID + " has reused nodes but the backend is not configured to support them");
+            }
+            argList.add(options.getReusedNodesArg());
+        }
+        String[] args = argList.toArray(new String[0]);
+        Method entryPoint = getEntryPoint();
+        String executorJobUID = JOB_ID_PREFIX + jobUID.toString().toLowerCase(Locale.ROOT);
+        // Throws RejectedExecutionException if the local executor is saturated, in which case submission is retried
+        jobs.put(executorJobUID, jobPool.submit(() -> {
+            ClassLoader prior = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(entryPoint.getDeclaringClass().getClassLoader());
+            try {
+                entryPoint.invoke(null, (Object) args);
+            } catch (InvocationTargetException e) {
+                System.out.println("Local execution of job " + jobUID + " failed");
+                e.getCause().printStackTrace();
+                throw new RuntimeException(e.getCause());
+            } finally {
+                Thread.currentThread().setContextClassLoader(prior);
+            }
+            return null;
+        }));
+        return executorJobUID;
+    }
+
+    @Override
+    public boolean supportsReusedNodes() {
+        return config.isBackendSupportsReusedNodes();
+    }
+
+    @Override
+    public boolean supportsJobStates() {
+        return true;
+    }
+
+    @Override
+    public Map<String, ExecutorJobState> getJobStates(Collection<String> executorJobUIDs) {
+        Map<String, ExecutorJobState> ret = new HashMap<>();
+        for (String executorJobUID : executorJobUIDs) {
+            Future<?> job = jobs.get(executorJobUID);
+            if (job == null) {
+                // Local jobs only live as long as the process that ran them, so a job not tracked here was lost to a
+                // restart (or has already reported its terminal state, which is then no longer applied)
+                ret.put(executorJobUID, ExecutorJobState.FAILED);
+                continue;
+            }
+            ExecutorJobState state;
+            if (!job.isDone()) {
+                state = ExecutorJobState.RUNNING;
+            } else if (job.isCancelled()) {
+                state = ExecutorJobState.CANCELED;
+            } else {
+                try {
+                    job.get();
+                    state = ExecutorJobState.FINISHED;
+                } catch (InterruptedException | ExecutionException e) {
+                    state = ExecutorJobState.FAILED;
+                }
+            }
+            if (state != ExecutorJobState.RUNNING) {
+                // Terminal states are only reported once, after which the job is no longer tracked
+                jobs.remove(executorJobUID);
+            }
+            ret.put(executorJobUID, state);
+        }
+        return ret;
+    }
+
+    @Override
+    public void cancelJob(String executorJobUID) {
+        Future<?> job = jobs.get(executorJobUID);
+        if (job != null) {
+            job.cancel(true);
+        }
+    }
+
+    @Override
+    public int getAvailableSlots() {
+        return Math.max(0, jobPool.getMaximumPoolSize() - jobPool.getActiveCount());
+    }
+
+    // The backend jar is only loaded once a job is actually routed here, so that deployments not using local
+    // execution need not have it available
+    private Method getEntryPoint() throws IOException, ClassNotFoundException, NoSuchMethodException {
+        if (backendClassLoader == null) {
+            synchronized (this) {
+                if (backendClassLoader == null) {
+                    File jar = new File(config.getBackendJarPath());
+                    if (!jar.exists()) {
+                        throw new IOException("Backend jar " + jar.getAbsolutePath() + " not found for local execution");
+                    }
+                    // Isolate the backend's dependencies from those of the middleware
+                    backendClassLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, ClassLoader.getPlatformClassLoader());
+                }
+            }
+        }
+        return Class.forName(config.getEntryClass(), true, backendClassLoader).getMethod("main", String[].class);
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        jobPool.shutdownNow();
+        if (backendClassLoader != null) {
+            backendClassLoader.close();
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("local-executor")
+    public static class ExecutorConfig {
+        private String backendJarPath = "./CAT-backend.jar";
+        private String entryClass = "org.ohnlp.ir.cat.CohortIdentificationJob";
+        // Number of jobs run at once, and number of jobs that may wait for a free slot before submission is refused
+        private int maxConcurrentJobs = 2;
+        private int queueDepth = 4;
+        // DirectRunner worker threads per job
+        private int jobParallelism = 4;
+        // Whether the backend JAR accepts --reusedNodes, see JobExecutionOptions#getReusedNodesArg
+        private boolean backendSupportsReusedNodes = false;
+
+        public String getBackendJarPath() {
+            return backendJarPath;
+        }
+
+        public void setBackendJarPath(String backendJarPath) {
+            this.backendJarPath = backendJarPath;
+        }
+
+        public String getEntryClass() {
+            return entryClass;
+        }
+
+        public void setEntryClass(String entryClass) {
+            this.entryClass = entryClass;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public void setQueueDepth(int queueDepth) {
+            this.queueDepth = queueDepth;
+        }
+
+        public int getJobParallelism() {
+            return jobParallelism;
+        }
+
+        public void setJobParallelism(int jobParallelism) {
+            this.jobParallelism = jobParallelism;
+        }
+
+        public boolean isBackendSupportsReusedNodes() {
+            return backendSupportsReusedNodes;
+        }
+
+        public void setBackendSupportsReusedNodes(boolean backendSupportsReusedNodes) {
+            this.backendSupportsReusedNodes = backendSupportsReusedNodes;
+        }
+    }
+}
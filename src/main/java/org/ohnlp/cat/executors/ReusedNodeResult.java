@@ -0,0 +1,25 @@
+package org.ohnlp.cat.executors;
+
+import java.util.UUID;
+
+/**
+ * Identifies a prior job's results for a criterion node that may be used in place of re-executing an unchanged
+ * criterion subtree
+ */
+public class ReusedNodeResult {
+    private final UUID jobUID;
+    private final UUID nodeUID;
+
+    public ReusedNodeResult(UUID jobUID, UUID nodeUID) {
+        this.jobUID = jobUID;
+        this.nodeUID = nodeUID;
+    }
+
+    public UUID getJobUID() {
+        return jobUID;
+    }
+
+    public UUID getNodeUID() {
+        return nodeUID;
+    }
+}
@@ -0,0 +1,27 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.api.cohorts.CandidateInclusion;
+
+/**
+ * A single cohort inclusion judgement within a bulk judgement write
+ */
+public class CohortJudgementUpdate {
+    private String patientUID;
+    private CandidateInclusion judgement;
+
+    public String getPatientUID() {
+        return patientUID;
+    }
+
+    public void setPatientUID(String patientUID) {
+        this.patientUID = patientUID;
+    }
+
+    public CandidateInclusion getJudgement() {
+        return judgement;
+    }
+
+    public void setJudgement(CandidateInclusion judgement) {
+        this.judgement = judgement;
+    }
+}
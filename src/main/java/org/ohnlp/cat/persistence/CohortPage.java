@@ -0,0 +1,38 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.api.cohorts.CohortCandidate;
+
+import java.util.List;
+
+/**
+ * A single page of cohort candidates ordered by descending score
+ */
+public class CohortPage {
+    private List<CohortCandidate> candidates;
+    // Opaque token to pass back to retrieve the following page, null if this is the last page
+    private String nextCursor;
+
+    public CohortPage() {
+    }
+
+    public CohortPage(List<CohortCandidate> candidates, String nextCursor) {
+        this.candidates = candidates;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CohortCandidate> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<CohortCandidate> candidates) {
+        this.candidates = candidates;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
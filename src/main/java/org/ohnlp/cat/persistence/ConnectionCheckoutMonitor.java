@@ -0,0 +1,101 @@
+package org.ohnlp.cat.persistence;
+
+import com.mchange.v2.c3p0.AbstractConnectionCustomizer;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how long connections of a c3p0 pool are held between checkout and checkin, warning when a connection is
+ * held longer than the pool's configured threshold. Instantiated by c3p0 itself, so counters are kept per pool
+ * (identified by the pool's identity token) in static state and read via {@link #getStats(String)}.
+ * <br/>
+ * Connections that are never returned are not reported here until c3p0 reclaims them, see
+ * unreturned-connection-timeout-seconds; currently held connections are however included in the oldest checkout age.
+ */
+public class ConnectionCheckoutMonitor extends AbstractConnectionCustomizer {
+    // Pool extension keys, see ComboPooledDataSource#setExtensions
+    static final String LONG_CHECKOUT_MILLIS = "longCheckoutWarningMillis";
+    static final String CAPTURE_CHECKOUT_STACK_TRACES = "captureCheckoutStackTraces";
+
+    private static final Map<String, PoolCounters> POOLS = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCheckOut(Connection c, String parentDataSourceIdentityToken) {
+        PoolCounters counters = POOLS.computeIfAbsent(parentDataSourceIdentityToken, k -> new PoolCounters());
+        counters.checkouts.incrementAndGet();
+        // Checkout happens on the requesting thread, so this identifies the code holding the connection
+        Throwable site = Boolean.parseBoolean(String.valueOf(extensionsForToken(parentDataSourceIdentityToken).get(CAPTURE_CHECKOUT_STACK_TRACES)))
+                ? new Throwable("Connection checked out by " + Thread.currentThread().getName()) : null;
+        counters.held.put(c, new Checkout(System.currentTimeMillis(), site));
+    }
+
+    @Override
+    public void onCheckIn(Connection c, String parentDataSourceIdentityToken) {
+        PoolCounters counters = POOLS.get(parentDataSourceIdentityToken);
+        Checkout checkout = counters == null ? null : counters.held.remove(c);
+        if (checkout == null) {
+            return;
+        }
+        long heldMillis = System.currentTimeMillis() - checkout.startMillis;
+        counters.totalHeldMillis.addAndGet(heldMillis);
+        counters.maxHeldMillis.accumulateAndGet(heldMillis, Math::max);
+        long threshold = getLongCheckoutMillis(parentDataSourceIdentityToken);
+        if (threshold > 0 && heldMillis >= threshold) {
+            counters.longCheckouts.incrementAndGet();
+            System.out.println("WARNING: Persistence connection held for " + heldMillis + "ms, exceeding " + threshold + "ms");
+            if (checkout.site != null) {
+                checkout.site.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void onDestroy(Connection c, String parentDataSourceIdentityToken) {
+        PoolCounters counters = POOLS.get(parentDataSourceIdentityToken);
+        if (counters != null) {
+            counters.held.remove(c);
+        }
+    }
+
+    private long getLongCheckoutMillis(String token) {
+        Object threshold = extensionsForToken(token).get(LONG_CHECKOUT_MILLIS);
+        return threshold == null ? 0 : Long.parseLong(String.valueOf(threshold));
+    }
+
+    /**
+     * @return Checkout counters for the pool with the given identity token
+     */
+    static ConnectionCheckoutStats getStats(String identityToken) {
+        PoolCounters counters = POOLS.getOrDefault(identityToken, new PoolCounters());
+        long now = System.currentTimeMillis();
+        long oldest = 0;
+        for (Checkout checkout : counters.held.values()) {
+            oldest = Math.max(oldest, now - checkout.startMillis);
+        }
+        long checkouts = counters.checkouts.get();
+        long completed = checkouts - counters.held.size();
+        return new ConnectionCheckoutStats(checkouts, counters.longCheckouts.get(), counters.held.size(), oldest,
+                counters.maxHeldMillis.get(), completed > 0 ? counters.totalHeldMillis.get() / completed : 0);
+    }
+
+    private static class PoolCounters {
+        private final Map<Connection, Checkout> held = new ConcurrentHashMap<>();
+        private final AtomicLong checkouts = new AtomicLong();
+        private final AtomicLong longCheckouts = new AtomicLong();
+        private final AtomicLong totalHeldMillis = new AtomicLong();
+        private final AtomicLong maxHeldMillis = new AtomicLong();
+    }
+
+    private static class Checkout {
+        private final long startMillis;
+        private final Throwable site;
+
+        private Checkout(long startMillis, Throwable site) {
+            this.startMillis = startMillis;
+            this.site = site;
+        }
+    }
+}
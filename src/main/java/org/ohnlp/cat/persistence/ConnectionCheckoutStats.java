@@ -0,0 +1,102 @@
+package org.ohnlp.cat.persistence;
+
+/**
+ * A point-in-time snapshot of persistence connection pool usage
+ */
+public class ConnectionCheckoutStats {
+    private final long checkouts;
+    private final long longCheckouts;
+    private final long currentlyCheckedOut;
+    private final long oldestCheckoutMillis;
+    private final long maxHeldMillis;
+    private final long averageHeldMillis;
+    // Pool state as reported by c3p0, -1 if unavailable
+    private int numConnections = -1;
+    private int numBusyConnections = -1;
+    private int numIdleConnections = -1;
+    private int numThreadsAwaitingCheckout = -1;
+    private long numFailedCheckouts = -1;
+    private int numCachedStatements = -1;
+
+    public ConnectionCheckoutStats(long checkouts, long longCheckouts, long currentlyCheckedOut,
+                                   long oldestCheckoutMillis, long maxHeldMillis, long averageHeldMillis) {
+        this.checkouts = checkouts;
+        this.longCheckouts = longCheckouts;
+        this.currentlyCheckedOut = currentlyCheckedOut;
+        this.oldestCheckoutMillis = oldestCheckoutMillis;
+        this.maxHeldMillis = maxHeldMillis;
+        this.averageHeldMillis = averageHeldMillis;
+    }
+
+    public long getCheckouts() {
+        return checkouts;
+    }
+
+    public long getLongCheckouts() {
+        return longCheckouts;
+    }
+
+    public long getCurrentlyCheckedOut() {
+        return currentlyCheckedOut;
+    }
+
+    public long getOldestCheckoutMillis() {
+        return oldestCheckoutMillis;
+    }
+
+    public long getMaxHeldMillis() {
+        return maxHeldMillis;
+    }
+
+    public long getAverageHeldMillis() {
+        return averageHeldMillis;
+    }
+
+    public int getNumConnections() {
+        return numConnections;
+    }
+
+    public void setNumConnections(int numConnections) {
+        this.numConnections = numConnections;
+    }
+
+    public int getNumBusyConnections() {
+        return numBusyConnections;
+    }
+
+    public void setNumBusyConnections(int numBusyConnections) {
+        this.numBusyConnections = numBusyConnections;
+    }
+
+    public int getNumIdleConnections() {
+        return numIdleConnections;
+    }
+
+    public void setNumIdleConnections(int numIdleConnections) {
+        this.numIdleConnections = numIdleConnections;
+    }
+
+    public int getNumThreadsAwaitingCheckout() {
+        return numThreadsAwaitingCheckout;
+    }
+
+    public void setNumThreadsAwaitingCheckout(int numThreadsAwaitingCheckout) {
+        this.numThreadsAwaitingCheckout = numThreadsAwaitingCheckout;
+    }
+
+    public long getNumFailedCheckouts() {
+        return numFailedCheckouts;
+    }
+
+    public void setNumFailedCheckouts(long numFailedCheckouts) {
+        this.numFailedCheckouts = numFailedCheckouts;
+    }
+
+    public int getNumCachedStatements() {
+        return numCachedStatements;
+    }
+
+    public void setNumCachedStatements(int numCachedStatements) {
+        this.numCachedStatements = numCachedStatements;
+    }
+}
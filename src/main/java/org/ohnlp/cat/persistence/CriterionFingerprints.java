@@ -0,0 +1,66 @@
+package org.ohnlp.cat.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.ohnlp.cat.api.criteria.Criterion;
+import org.ohnlp.cat.api.criteria.LogicalCriterion;
+import org.ohnlp.cat.util.Hashes;
+
+import java.util.*;
+
+/**
+ * Computes content fingerprints for each subtree of a criterion. A subtree's fingerprint covers its definition,
+ * including that of all its descendants, and the data sources it is evaluated against, but not the node UIDs within
+ * it, such that two jobs evaluating identical subtrees against identical data sources produce identical results for
+ * that subtree regardless of how the surrounding criterion was edited.
+ */
+final class CriterionFingerprints {
+    private static final String NODE_UID_FIELD = "nodeUID";
+
+    private CriterionFingerprints() {
+    }
+
+    /**
+     * @param criterion   The root of the criterion
+     * @param dataSources The serialized data sources of the project, or null if none
+     * @param om          Object mapper used to serialize criterion definitions
+     * @return Subtree fingerprints by node UID, in pre-order (parents before their children)
+     */
+    static LinkedHashMap<UUID, String> compute(Criterion criterion, String dataSources, ObjectMapper om) throws JsonProcessingException {
+        String canonicalDataSources = dataSources == null ? "" : canonicalize(om.readTree(dataSources), om);
+        LinkedHashMap<UUID, String> ret = new LinkedHashMap<>();
+        computeRecurs(criterion, canonicalDataSources, om, ret);
+        return ret;
+    }
+
+    private static void computeRecurs(Criterion criterion, String dataSources, ObjectMapper om, Map<UUID, String> out) throws JsonProcessingException {
+        if (criterion.getNodeUID() != null) {
+            JsonNode definition = om.valueToTree(criterion);
+            stripNodeUIDs(definition);
+            out.put(criterion.getNodeUID(), Hashes.sha256Hex(canonicalize(definition, om) + "\n" + dataSources));
+        }
+        if (criterion instanceof LogicalCriterion) {
+            for (Criterion child : ((LogicalCriterion) criterion).getChildren()) {
+                computeRecurs(child, dataSources, om, out);
+            }
+        }
+    }
+
+    private static void stripNodeUIDs(JsonNode node) {
+        if (node instanceof ObjectNode) {
+            ((ObjectNode) node).remove(NODE_UID_FIELD);
+        }
+        for (JsonNode child : node) {
+            stripNodeUIDs(child);
+        }
+    }
+
+    // Serializes with object keys in sorted order so that fingerprints do not depend on property ordering
+    private static String canonicalize(JsonNode node, ObjectMapper om) throws JsonProcessingException {
+        Object plain = om.treeToValue(node, Object.class);
+        return om.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsString(plain);
+    }
+}
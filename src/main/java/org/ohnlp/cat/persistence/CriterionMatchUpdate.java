@@ -0,0 +1,38 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.api.criteria.CriterionInfo;
+
+import java.util.UUID;
+
+/**
+ * A single criterion match judgement for a person and criterion (node) within a bulk judgement write
+ */
+public class CriterionMatchUpdate {
+    private UUID nodeUID;
+    private String personUID;
+    private CriterionInfo judgement;
+
+    public UUID getNodeUID() {
+        return nodeUID;
+    }
+
+    public void setNodeUID(UUID nodeUID) {
+        this.nodeUID = nodeUID;
+    }
+
+    public String getPersonUID() {
+        return personUID;
+    }
+
+    public void setPersonUID(String personUID) {
+        this.personUID = personUID;
+    }
+
+    public CriterionInfo getJudgement() {
+        return judgement;
+    }
+
+    public void setJudgement(CriterionInfo judgement) {
+        this.judgement = judgement;
+    }
+}
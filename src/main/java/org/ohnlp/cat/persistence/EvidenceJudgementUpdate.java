@@ -0,0 +1,38 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.api.criteria.CriterionJudgement;
+
+import java.util.UUID;
+
+/**
+ * A single evidence match judgement within a bulk judgement write
+ */
+public class EvidenceJudgementUpdate {
+    private UUID nodeUID;
+    private String evidenceUID;
+    private CriterionJudgement judgement;
+
+    public UUID getNodeUID() {
+        return nodeUID;
+    }
+
+    public void setNodeUID(UUID nodeUID) {
+        this.nodeUID = nodeUID;
+    }
+
+    public String getEvidenceUID() {
+        return evidenceUID;
+    }
+
+    public void setEvidenceUID(String evidenceUID) {
+        this.evidenceUID = evidenceUID;
+    }
+
+    public CriterionJudgement getJudgement() {
+        return judgement;
+    }
+
+    public void setJudgement(CriterionJudgement judgement) {
+        this.judgement = judgement;
+    }
+}
@@ -17,55 +17,77 @@ import org.ohnlp.cat.api.jobs.JobStatus;
 import org.ohnlp.cat.api.projects.Project;
 import org.ohnlp.cat.api.projects.ProjectAuthorityGrant;
 import org.ohnlp.cat.api.projects.ProjectRole;
+import org.ohnlp.cat.cache.BoundedCache;
+import org.ohnlp.cat.executors.ExecutorJobState;
+import org.ohnlp.cat.executors.JobDispatchCallback;
 import org.ohnlp.cat.executors.JobExecutorManager;
+import org.ohnlp.cat.executors.ReusedNodeResult;
+import org.ohnlp.cat.util.Hashes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.beans.PropertyVetoException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 import java.util.Date;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 // TODO permissions checks for all functions?
+// All statements and result sets are closed via try-with-resources so that statements are returned to the pool's
+// statement cache rather than held open until the connection itself is closed
 @Component
 public class JDBCBackedStorage {
+    // Recorded as the executor job ID of submitted jobs for which the executor does not supply one
+    private static final String UNTRACKED_EXECUTOR_JOB_UID = "UNTRACKED";
     private final JobExecutorManager jobExecutor;
     private final ApplicationConfiguration config;
     private final String schema;
+    private final StorageSQL sql;
     private ComboPooledDataSource datasource;
+    private SQLDialect dialect;
+    // Fetch size used when streaming large result sets, see streamRetrievedCohort
+    private int streamingFetchSize;
     private ThreadLocal<ObjectMapper> om = ThreadLocal.withInitial(ObjectMapper::new);
+    // Authorization lookups precede nearly every storage call, so cache them in-process
+    private final BoundedCache<UUID, UUID> jobProjectCache;
+    private final BoundedCache<String, List<ProjectAuthorityGrant>> grantCache;
+    private final BoundedCache<Long, ParsedCriterion> criterionCache;
 
     @Autowired
     public JDBCBackedStorage(ApplicationConfiguration config, JobExecutorManager jobExecutor) {
         this.schema = config.getPersistence().getSchema();
+        this.sql = new StorageSQL(schema);
         initDBConn(config);
         this.jobExecutor = jobExecutor;
         this.config = config;
+        ApplicationConfiguration.CacheConfig jobProjectCacheConfig = config.getPersistence().getJobProjectCache();
+        this.jobProjectCache = new BoundedCache<>(jobProjectCacheConfig.getMaxEntries(), jobProjectCacheConfig.getTtlSeconds() * 1000);
+        ApplicationConfiguration.CacheConfig grantCacheConfig = config.getPersistence().getAuthorizationCache();
+        this.grantCache = new BoundedCache<>(grantCacheConfig.getMaxEntries(), grantCacheConfig.getTtlSeconds() * 1000);
+        ApplicationConfiguration.CacheConfig criterionCacheConfig = config.getPersistence().getCriterionCache();
+        this.criterionCache = new BoundedCache<>(criterionCacheConfig.getMaxEntries(), criterionCacheConfig.getTtlSeconds() * 1000);
     }
 
     // ===== Project Management Methods ===== //
     public List<Project> getProjectList(Authentication authentication) throws IOException {
         List<Project> ret = new ArrayList<>();
-        try (Connection conn = this.datasource.getConnection()) {
-            // If the user has any role grant, then user can at least view said project and it should be returned
-            // If the project exists in project archive (pa.row_uid is not null) then do not return to user.
-            PreparedStatement ps = conn.prepareStatement(
-                    "SELECT p.project_uid, p.project_name, p.project_desc FROM " + schema + ".projects p " +
-                            "JOIN " + schema + ".project_role_grants prg ON p.project_uid = prg.project_uid " +
-                            "LEFT JOIN " + schema + ".project_archive pa ON p.project_uid = pa.project_uid " +
-                            "WHERE prg.user_uid = ? AND pa.row_uid IS NULL"
-            );
+        try (Connection conn = this.datasource.getConnection();
+             // If the user has any role grant, then user can at least view said project and it should be returned
+             // If the project exists in project archive (pa.row_uid is not null) then do not return to user.
+             PreparedStatement ps = conn.prepareStatement(sql.projectList)) {
             ps.setString(1, userIdForAuth(authentication));
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                Project project = new Project();
-                project.setName(rs.getString("project_name"));
-                project.setUid(UUID.fromString(rs.getString("project_uid")));
-                project.setDescription(rs.getString("project_desc"));
-                ret.add(project);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Project project = new Project();
+                    project.setName(rs.getString("project_name"));
+                    project.setUid(UUID.fromString(rs.getString("project_uid")));
+                    project.setDescription(rs.getString("project_desc"));
+                    ret.add(project);
+                }
             }
             return ret;
         } catch (SQLException e) {
@@ -82,20 +104,21 @@ public class JDBCBackedStorage {
             // Begin atomic transaction block
             conn.setAutoCommit(false);
             // First, create the project itself
-            PreparedStatement createProjectPS = conn.prepareStatement("INSERT INTO " + schema + ".projects (project_uid, project_name) VALUES (?, ?)");
-            createProjectPS.setString(1, ret.getUid().toString().toUpperCase(Locale.ROOT));
-            createProjectPS.setString(2, ret.getName());
-            if (createProjectPS.executeUpdate() < 1) {
-                throw new IllegalStateException("Failed to create project due to 0-change write to projects");
+            try (PreparedStatement createProjectPS = conn.prepareStatement(sql.insertProject)) {
+                createProjectPS.setString(1, ret.getUid().toString().toUpperCase(Locale.ROOT));
+                createProjectPS.setString(2, ret.getName());
+                if (createProjectPS.executeUpdate() < 1) {
+                    throw new IllegalStateException("Failed to create project due to 0-change write to projects");
+                }
             }
             // Now create the authority grant
-            PreparedStatement authorityGrantPS = conn.prepareStatement(
-                    "INSERT INTO " + schema + ".project_role_grants (project_uid, user_uid, grant_type) VALUES (?, ?, ?)");
-            authorityGrantPS.setString(1, ret.getUid().toString().toUpperCase(Locale.ROOT));
-            authorityGrantPS.setString(2, userIdForAuth(authentication));
-            authorityGrantPS.setString(3, ProjectAuthorityGrant.ADMIN.name());
-            if (authorityGrantPS.executeUpdate() < 1) {
-                throw new IllegalStateException("Failed to create project due to 0-change write to authority grants");
+            try (PreparedStatement authorityGrantPS = conn.prepareStatement(sql.insertProjectOwnerGrant)) {
+                authorityGrantPS.setString(1, ret.getUid().toString().toUpperCase(Locale.ROOT));
+                authorityGrantPS.setString(2, userIdForAuth(authentication));
+                authorityGrantPS.setString(3, ProjectAuthorityGrant.ADMIN.name());
+                if (authorityGrantPS.executeUpdate() < 1) {
+                    throw new IllegalStateException("Failed to create project due to 0-change write to authority grants");
+                }
             }
             conn.commit();
             conn.setAutoCommit(true);
@@ -110,11 +133,12 @@ public class JDBCBackedStorage {
     public Project renameProject(Authentication authentication, UUID projectUID, String projectName) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.ADMIN)) {
-                PreparedStatement updateProject = conn.prepareStatement("UPDATE " + schema + ".projects SET project_name = ? where project_uid = ?");
-                updateProject.setString(1, projectName);
-                updateProject.setString(2, projectUID.toString().toUpperCase(Locale.ROOT));
-                if (updateProject.executeUpdate() < 1) {
-                    throw new IllegalStateException("Failed to edit project due to 0-change write to projects");
+                try (PreparedStatement updateProject = conn.prepareStatement(sql.renameProject)) {
+                    updateProject.setString(1, projectName);
+                    updateProject.setString(2, projectUID.toString().toUpperCase(Locale.ROOT));
+                    if (updateProject.executeUpdate() < 1) {
+                        throw new IllegalStateException("Failed to edit project due to 0-change write to projects");
+                    }
                 }
                 Project ret = new Project();
                 ret.setName(projectName);
@@ -133,17 +157,22 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, role.getProjectUID(), authentication, ProjectAuthorityGrant.WRITE)) {
                 // Try update first
-                PreparedStatement updateRoles = conn.prepareStatement("UPDATE " + schema + ".PROJECT_ROLE_GRANTS SET grant_type = ? WHERE project_uid = ? AND user_uid = ?");
-                updateRoles.setString(1, role.getGrant().name());
-                updateRoles.setString(2, role.getProjectUID().toString().toUpperCase(Locale.ROOT));
-                updateRoles.setString(3, role.getUserUID().toUpperCase(Locale.ROOT)); // TODO handle checking if user exists in system
-                if (updateRoles.executeUpdate() < 1) { // No preexisting role for user on project
-                    PreparedStatement insertRoles = conn.prepareStatement("INSERT INTO " + schema + ".PROJECT_ROLE_GRANTS (project_uid, user_uid, grant_type) VALUES (?, ?, ?)");
-                    insertRoles.setString(1, role.getProjectUID().toString().toUpperCase(Locale.ROOT));
-                    insertRoles.setString(2, role.getUserUID().toUpperCase(Locale.ROOT)); // TODO handle checking if user exists in system
-                    insertRoles.setString(3, role.getGrant().name()); //
-                    insertRoles.executeUpdate();
+                int updated;
+                try (PreparedStatement updateRoles = conn.prepareStatement(sql.updateRoleGrant)) {
+                    updateRoles.setString(1, role.getGrant().name());
+                    updateRoles.setString(2, role.getProjectUID().toString().toUpperCase(Locale.ROOT));
+                    updateRoles.setString(3, role.getUserUID().toUpperCase(Locale.ROOT)); // TODO handle checking if user exists in system
+                    updated = updateRoles.executeUpdate();
+                }
+                if (updated < 1) { // No preexisting role for user on project
+                    try (PreparedStatement insertRoles = conn.prepareStatement(sql.insertRoleGrant)) {
+                        insertRoles.setString(1, role.getProjectUID().toString().toUpperCase(Locale.ROOT));
+                        insertRoles.setString(2, role.getUserUID().toUpperCase(Locale.ROOT)); // TODO handle checking if user exists in system
+                        insertRoles.setString(3, role.getGrant().name()); //
+                        insertRoles.executeUpdate();
+                    }
                 }
+                grantCache.invalidate(grantCacheKey(role.getProjectUID(), role.getUserUID().toUpperCase(Locale.ROOT)));
                 return true;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.WRITE.name());
@@ -157,11 +186,14 @@ public class JDBCBackedStorage {
     public Boolean archiveProject(Authentication authentication, UUID projectUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.ADMIN)) {
-                PreparedStatement updateArchive = conn.prepareStatement("INSERT INTO " + schema + ".PROJECT_ARCHIVE (project_uid) VALUES (?)");
-                updateArchive.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                if (updateArchive.executeUpdate() < 1) {
-                    return false;
+                try (PreparedStatement updateArchive = conn.prepareStatement(sql.insertProjectArchive)) {
+                    updateArchive.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                    if (updateArchive.executeUpdate() < 1) {
+                        return false;
+                    }
                 }
+                String projectKeyPrefix = grantCacheKey(projectUID, "");
+                grantCache.invalidateIf(key -> key.startsWith(projectKeyPrefix));
                 return true;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.ADMIN.name());
@@ -175,11 +207,9 @@ public class JDBCBackedStorage {
     public Criterion getProjectCriterion(Authentication authentication, UUID projectUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement("SELECT criterion, revision_date FROM " + schema + ".PROJECT_CRITERION p WHERE project_uid = ? ORDER BY revision_date DESC");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    return om.get().readValue(rs.getString(1), Criterion.class);
+                ParsedCriterion parsed = getLatestParsedCriterionForProject(conn, projectUID);
+                if (parsed != null) {
+                    return parsed.getCriterion();
                 }
             }
             return null;
@@ -193,11 +223,12 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.WRITE)) {
                 // Never try updating, instead always create new criterion definition with timestamp so that history is retained
-                PreparedStatement ps = conn.prepareStatement("INSERT INTO " + schema + ".project_criterion (project_uid, criterion, revision_date) VALUES (?, ?, ?)"); // TODO
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(2, om.get().writeValueAsString(def));
-                ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
-                ps.executeUpdate();
+                try (PreparedStatement ps = conn.prepareStatement(sql.insertProjectCriterion)) { // TODO
+                    ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, om.get().writeValueAsString(def));
+                    ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                    ps.executeUpdate();
+                }
                 return true;
             }
             return false;
@@ -210,11 +241,7 @@ public class JDBCBackedStorage {
     public List<DataSourceInformation> getProjectDataSources(Authentication authentication, UUID projectUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement("SELECT data_sources FROM " + schema + ".project_data_sources WHERE project_uid = ?");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                rs.next();
-                return om.get().readValue(rs.getString("data_source"), new TypeReference<>() {});
+                return readProjectDataSources(conn, projectUID);
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -224,18 +251,32 @@ public class JDBCBackedStorage {
         }
     }
 
+    private List<DataSourceInformation> readProjectDataSources(Connection conn, UUID projectUID) throws SQLException, JsonProcessingException {
+        try (PreparedStatement ps = conn.prepareStatement(sql.projectDataSources)) {
+            ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return om.get().readValue(rs.getString("data_sources"), new TypeReference<>() {});
+            }
+        }
+    }
+
     public boolean writeProjectDataSources(Authentication authentication, UUID projectUID, List<DataSourceInformation> dataSources) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.WRITE)) {
                 // Try update first
-                PreparedStatement updateRoles = conn.prepareStatement("UPDATE " + schema + ".project_data_sources SET data_sources = ? WHERE project_uid = ?");
-                updateRoles.setString(1, om.get().writeValueAsString(dataSources));
-                updateRoles.setString(2, projectUID.toString().toUpperCase(Locale.ROOT));
-                if (updateRoles.executeUpdate() < 1) { // No preexisting role for user on project
-                    PreparedStatement insertRoles = conn.prepareStatement("INSERT INTO " + schema + ".project_data_sources (project_uid, data_sources) VALUES (?, ?)");
-                    insertRoles.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                    insertRoles.setString(2,  om.get().writeValueAsString(dataSources));
-                    insertRoles.executeUpdate();
+                int updated;
+                try (PreparedStatement updateRoles = conn.prepareStatement(sql.updateProjectDataSources)) {
+                    updateRoles.setString(1, om.get().writeValueAsString(dataSources));
+                    updateRoles.setString(2, projectUID.toString().toUpperCase(Locale.ROOT));
+                    updated = updateRoles.executeUpdate();
+                }
+                if (updated < 1) { // No preexisting role for user on project
+                    try (PreparedStatement insertRoles = conn.prepareStatement(sql.insertProjectDataSources)) {
+                        insertRoles.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                        insertRoles.setString(2,  om.get().writeValueAsString(dataSources));
+                        insertRoles.executeUpdate();
+                    }
                 }
                 return true;
             } else {
@@ -248,30 +289,110 @@ public class JDBCBackedStorage {
     }
 
     // ===== Cohort Related Methods ===== //
-    // Gets the current evaluated cohort for a given project/user. TODO consider adding pagination in returned results (sort by score)
+    // Gets the current evaluated cohort for a given project/user. For large cohorts, prefer getRetrievedCohortPage or
+    // streamRetrievedCohort, which do not materialize the entire cohort in memory
     public List<CohortCandidate> getRetrievedCohort(Authentication authentication, UUID jobUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT c.person_uid, c.score, j.judgement " +
-                                "FROM (SELECT * FROM " + schema + ".COHORT WHERE job_uid = ?) c LEFT JOIN (SELECT * FROM " + schema + ".COHORT_RELEVANCE WHERE judger_uid = ?) j" +
-                                "     ON c.row_uid = j.cohort_row_uid ORDER BY c.score DESC");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(2, userIdForAuth(authentication));
+                try (PreparedStatement ps = conn.prepareStatement(sql.cohortForJudger)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, userIdForAuth(authentication));
+                    List<CohortCandidate> ret = new ArrayList<>();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ret.add(readCohortCandidate(rs));
+                        }
+                    }
+                    return ret;
+                }
+            } else {
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on cohort search result retrieval", e);
+        }
+    }
+
+    /**
+     * Gets a single page of the evaluated cohort for a given job, ordered by descending score with unscored candidates
+     * last. Pagination is keyset based on (score, row_uid) so that retrieving later pages does not require scanning
+     * earlier ones.
+     *
+     * @param cursor   The cursor returned with the prior page, or null for the first page
+     * @param pageSize The maximum number of candidates to return, or a value <= 0 to use the configured default
+     */
+    public CohortPage getRetrievedCohortPage(Authentication authentication, UUID jobUID, String cursor, int pageSize) throws IOException {
+        if (pageSize <= 0) {
+            pageSize = config.getPersistence().getDefaultPageSize();
+        }
+        pageSize = Math.min(pageSize, config.getPersistence().getMaxPageSize());
+        try (Connection conn = this.datasource.getConnection()) {
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
+                CohortCursor position = cursor == null ? null : CohortCursor.decode(cursor);
+                // Fetch one extra row to determine whether there is a following page
+                int limit = pageSize + 1;
                 List<CohortCandidate> ret = new ArrayList<>();
-                ResultSet rs = ps.executeQuery();
-                while (rs.next()) {
-                    CohortCandidate next = new CohortCandidate();
-                    next.setPatUID(rs.getString("person_uid"));
-                    String jgmt = rs.getString("judgement");
-                    if (jgmt != null) {
-                        next.setInclusion(CandidateInclusion.valueOf(jgmt.toUpperCase(Locale.ROOT)));
-                    } else {
-                        next.setInclusion(CandidateInclusion.UNJUDGED);
+                List<CohortCursor> positions = new ArrayList<>();
+                if (position == null || position.score != null) {
+                    try (PreparedStatement ps = conn.prepareStatement(position == null ? sql.cohortOrderedForJudger : sql.cohortOrderedForJudgerAfter)) {
+                        ps.setString(1, userIdForAuth(authentication));
+                        ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                        if (position != null) {
+                            ps.setDouble(3, position.score);
+                            ps.setDouble(4, position.score);
+                            ps.setLong(5, position.rowUID);
+                        }
+                        readCohortPageRows(ps, limit, ret, positions);
+                    }
+                }
+                // Unscored candidates follow once all scored candidates have been returned
+                if (ret.size() < limit) {
+                    try (PreparedStatement ps = conn.prepareStatement(sql.unscoredCohortForJudgerAfter)) {
+                        ps.setString(1, userIdForAuth(authentication));
+                        ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setLong(3, position == null || position.score != null ? Long.MIN_VALUE : position.rowUID);
+                        readCohortPageRows(ps, limit, ret, positions);
+                    }
+                }
+                String nextCursor = null;
+                if (ret.size() > pageSize) {
+                    ret.remove(pageSize);
+                    nextCursor = positions.get(pageSize - 1).encode();
+                }
+                return new CohortPage(ret, nextCursor);
+            } else {
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on cohort search result retrieval", e);
+        }
+    }
+
+    /**
+     * Streams the evaluated cohort for a given job to the supplied consumer in descending score order, unscored
+     * candidates last, as rows are read from the database, without materializing the full cohort in memory
+     */
+    public void streamRetrievedCohort(Authentication authentication, UUID jobUID, Consumer<CohortCandidate> consumer) throws IOException {
+        try (Connection conn = this.datasource.getConnection()) {
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
+                for (boolean scored : new boolean[]{true, false}) {
+                    try (PreparedStatement ps = conn.prepareStatement(scored ? sql.cohortOrderedForJudger : sql.unscoredCohortForJudgerAfter,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                        ps.setString(1, userIdForAuth(authentication));
+                        ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                        if (!scored) {
+                            ps.setLong(3, Long.MIN_VALUE);
+                        }
+                        ps.setFetchSize(streamingFetchSize);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                consumer.accept(readCohortCandidate(rs));
+                            }
+                        }
                     }
-                    ret.add(next);
                 }
-                return ret;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -281,24 +402,92 @@ public class JDBCBackedStorage {
         }
     }
 
+    private CohortCandidate readCohortCandidate(ResultSet rs) throws SQLException {
+        CohortCandidate next = new CohortCandidate();
+        next.setPatUID(rs.getString("person_uid"));
+        String jgmt = rs.getString("judgement");
+        if (jgmt != null) {
+            next.setInclusion(CandidateInclusion.valueOf(jgmt.toUpperCase(Locale.ROOT)));
+        } else {
+            next.setInclusion(CandidateInclusion.UNJUDGED);
+        }
+        return next;
+    }
+
+    // Appends the rows of a cohort page query to the page, along with the position of each, until limit rows are held
+    private void readCohortPageRows(PreparedStatement ps, int limit, List<CohortCandidate> page, List<CohortCursor> positions) throws SQLException {
+        ps.setMaxRows(limit - page.size());
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next() && page.size() < limit) {
+                page.add(readCohortCandidate(rs));
+                double score = rs.getDouble("score");
+                positions.add(new CohortCursor(rs.wasNull() ? null : score, rs.getLong("row_uid")));
+            }
+        }
+    }
+
+    // Position within a cohort ordered by (score DESC, row_uid ASC) with unscored candidates last, serialized as an
+    // opaque URL-safe token. A null score denotes a position among the unscored candidates
+    private static class CohortCursor {
+        private final Double score;
+        private final long rowUID;
+
+        private CohortCursor(Double score, long rowUID) {
+            this.score = score;
+            this.rowUID = rowUID;
+        }
+
+        private String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(((score == null ? "" : score.toString()) + ":" + rowUID).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static CohortCursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = decoded.lastIndexOf(':');
+                String score = decoded.substring(0, sep);
+                return new CohortCursor(score.isEmpty() ? null : Double.valueOf(score), Long.parseLong(decoded.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Malformed cohort cursor " + cursor, e);
+            }
+        }
+    }
+
     public Map<String, CandidateInclusion> getCohortRelevance(Authentication authentication, UUID jobUID, String... patientUIDs) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
                 Map<String, CandidateInclusion> ret = new HashMap<>();
-                PreparedStatement ps = conn.prepareStatement("SELECT judgement " +
-                        "FROM " + schema + ".COHORT c " +
-                        "JOIN " + schema + ".COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
-                        "WHERE c.job_uid = ? AND c.person_uid = ? AND cr.judger_uid = ?");
-                for (String patientUID : patientUIDs) { // Do one-by-one search because not all JDBC drivers support IN clauses...
-                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(2, patientUID);
-                    ps.setString(3, userIdForAuth(authentication));
-                    ResultSet rs = ps.executeQuery();
-                    if (rs.next()) {
-                        ret.put(patientUID, CandidateInclusion.valueOf(rs.getString("judgement")));
-                    } else {
-                        ret.put(patientUID, CandidateInclusion.UNJUDGED);
+                if (config.getPersistence().isBulkLookups()) {
+                    for (List<String> chunk : chunkForInClause(Arrays.asList(patientUIDs))) {
+                        int bucketSize = inClauseBucketSize(chunk.size());
+                        try (PreparedStatement ps = conn.prepareStatement(sql.cohortRelevanceForPatients.forSize(bucketSize))) {
+                            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(2, userIdForAuth(authentication));
+                            bindInClause(ps, 3, chunk, bucketSize);
+                            try (ResultSet rs = ps.executeQuery()) {
+                                while (rs.next()) {
+                                    ret.putIfAbsent(rs.getString("person_uid"), CandidateInclusion.valueOf(rs.getString("judgement")));
+                                }
+                            }
+                        }
                     }
+                } else {
+                    try (PreparedStatement ps = conn.prepareStatement(sql.cohortRelevanceForPatient)) {
+                        for (String patientUID : patientUIDs) { // Do one-by-one search for drivers that do not support IN clauses
+                            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(2, patientUID);
+                            ps.setString(3, userIdForAuth(authentication));
+                            try (ResultSet rs = ps.executeQuery()) {
+                                if (rs.next()) {
+                                    ret.put(patientUID, CandidateInclusion.valueOf(rs.getString("judgement")));
+                                }
+                            }
+                        }
+                    }
+                }
+                for (String patientUID : patientUIDs) {
+                    ret.putIfAbsent(patientUID, CandidateInclusion.UNJUDGED);
                 }
                 return ret;
             } else {
@@ -314,35 +503,42 @@ public class JDBCBackedStorage {
                                         String patId, CandidateInclusion inclusion) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
-                // Manually check exists instead of using MERGE because not all SQL dialects support it
-                PreparedStatement checkExists = conn.prepareStatement(
-                        "SELECT c.row_uid, cr.row_uid AS JUDGEMENT_ROW, cr.judgement FROM " + schema + ".COHORT c " +
-                                "LEFT JOIN " + schema + ".COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid AND cr.judger_uid = ?" +
-                                "WHERE c.job_uid = ? AND c.person_uid = ?");
-                checkExists.setString(1, userIdForAuth(authentication));
-                checkExists.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                checkExists.setString(3, patId);
-                ResultSet rs = checkExists.executeQuery();
-                if (rs.next()) {
-                    long rowUID = rs.getLong("row_uid");
-                    if (rs.getString("judgement") != null) { // preexisting relevance
-                        PreparedStatement ps = conn.prepareStatement(
-                                "UPDATE " + schema + ".COHORT_RELEVANCE " +
-                                        "SET judgement = ? " +
-                                        "WHERE row_uid = ?");
-                        ps.setString(1, inclusion.name());
-                        ps.setLong(2, rs.getLong("JUDGEMENT_ROW"));
-                        return ps.executeUpdate() > 0;
+                // The adjudication summary is updated in the same transaction as the judgement itself
+                conn.setAutoCommit(false);
+                try {
+                    boolean summaryBuilt = lockAdjudicationSummaryState(conn, jobUID);
+                    // Manually check exists instead of using MERGE because not all SQL dialects support it
+                    CohortJudgementRow existing = lockCohortJudgements(conn, jobUID, userIdForAuth(authentication), Collections.singletonList(patId)).get(patId);
+                    if (existing == null) {
+                        throw new IllegalStateException("Attempted to create judgement on patient " + patId + " that does not exist in cohort for job " + jobUID);
+                    }
+                    boolean written;
+                    if (existing.judgementRowUID != null) { // preexisting relevance
+                        try (PreparedStatement ps = conn.prepareStatement(sql.updateCohortRelevance)) {
+                            ps.setString(1, inclusion.name());
+                            ps.setLong(2, existing.judgementRowUID);
+                            written = ps.executeUpdate() > 0;
+                        }
                     } else {
-                        PreparedStatement ps = conn.prepareStatement(
-                                "INSERT INTO " + schema + ".COHORT_RELEVANCE (cohort_row_uid, judger_uid, judgement) VALUES (?, ?, ?)");
-                        ps.setLong(1, rowUID);
-                        ps.setString(2, userIdForAuth(authentication));
-                        ps.setString(3, inclusion.name());
-                        return ps.executeUpdate() > 0;
+                        try (PreparedStatement ps = conn.prepareStatement(sql.insertCohortRelevance)) {
+                            ps.setLong(1, existing.cohortRowUID);
+                            ps.setString(2, userIdForAuth(authentication));
+                            ps.setString(3, inclusion.name());
+                            written = ps.executeUpdate() > 0;
+                        }
                     }
-                } else {
-                    throw new IllegalStateException("Attempted to create judgement on patient " + patId + " that does not exist in cohort for job " + jobUID);
+                    if (written && summaryBuilt) {
+                        Map<Long, Map<String, Integer>> deltas = new HashMap<>();
+                        addAdjudicationSummaryDelta(deltas, existing.cohortRowUID, existing.judgement, inclusion.name());
+                        applyAdjudicationSummaryDeltas(conn, jobUID, deltas);
+                    }
+                    conn.commit();
+                    return written;
+                } catch (Throwable t) {
+                    conn.rollback();
+                    throw t;
+                } finally {
+                    conn.setAutoCommit(true);
                 }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
@@ -353,92 +549,347 @@ public class JDBCBackedStorage {
         }
     }
 
-    public Map<String, CriterionInfo> getCriterionMatchStatus(Authentication authentication, UUID jobUID, String personUID) throws IOException {
-        Set<String> nodeUIDs = new HashSet<>();
-        Map<String, CriterionInfo> judgements = new ConcurrentHashMap<>();
+    /**
+     * Writes multiple cohort inclusion judgements for a job in a single transaction. Either all judgements are
+     * written or, if any patient is not in the job's cohort, none are.
+     *
+     * @return The number of judgements written
+     */
+    public int writeCohortJudgements(Authentication authentication, UUID jobUID, List<CohortJudgementUpdate> judgements) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
-            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT pc.criterion " +
-                                "FROM " + schema + ".AUDIT_LOG al " +
-                                "JOIN " + schema + ".PROJECT_CRITERION pc ON al.criterion_uid = pc.row_uid " +
-                                "WHERE al.job_uid = ?"
-                );
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                Criterion def;
-                if (rs.next()) {
-                    def = om.get().readValue(rs.getString("criterion"), Criterion.class);
-                } else {
-                    throw new IllegalStateException("No definition stored for job");
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
+                String judger = userIdForAuth(authentication);
+                // Later judgements for the same patient supersede earlier ones
+                Map<String, CandidateInclusion> byPatient = new LinkedHashMap<>();
+                for (CohortJudgementUpdate judgement : judgements) {
+                    byPatient.put(judgement.getPatientUID(), judgement.getJudgement());
+                }
+                if (byPatient.isEmpty()) {
+                    return 0;
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement update = conn.prepareStatement(sql.updateCohortRelevance);
+                     PreparedStatement insert = conn.prepareStatement(sql.insertCohortRelevance)) {
+                    boolean summaryBuilt = lockAdjudicationSummaryState(conn, jobUID);
+                    Map<String, CohortJudgementRow> existing = lockCohortJudgements(conn, jobUID, judger, byPatient.keySet());
+                    for (String patId : byPatient.keySet()) {
+                        if (!existing.containsKey(patId)) {
+                            throw new IllegalStateException("Attempted to create judgement on patient " + patId + " that does not exist in cohort for job " + jobUID);
+                        }
+                    }
+                    boolean hasUpdates = false;
+                    boolean hasInserts = false;
+                    Map<Long, Map<String, Integer>> summaryDeltas = new HashMap<>();
+                    for (Map.Entry<String, CandidateInclusion> judgement : byPatient.entrySet()) {
+                        CohortJudgementRow row = existing.get(judgement.getKey());
+                        addAdjudicationSummaryDelta(summaryDeltas, row.cohortRowUID, row.judgement, judgement.getValue().name());
+                        if (row.judgementRowUID != null) { // preexisting relevance
+                            update.setString(1, judgement.getValue().name());
+                            update.setLong(2, row.judgementRowUID);
+                            update.addBatch();
+                            hasUpdates = true;
+                        } else {
+                            insert.setLong(1, row.cohortRowUID);
+                            insert.setString(2, judger);
+                            insert.setString(3, judgement.getValue().name());
+                            insert.addBatch();
+                            hasInserts = true;
+                        }
+                    }
+                    int written = (hasUpdates ? sumBatchCounts(update.executeBatch()) : 0)
+                            + (hasInserts ? sumBatchCounts(insert.executeBatch()) : 0);
+                    if (summaryBuilt) {
+                        applyAdjudicationSummaryDeltas(conn, jobUID, summaryDeltas);
+                    }
+                    conn.commit();
+                    return written;
+                } catch (Throwable t) {
+                    conn.rollback();
+                    throw t;
+                } finally {
+                    conn.setAutoCommit(true);
                 }
-
-                recursSearchNodeUIDsFromDef(def, nodeUIDs);
             } else {
-                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
             }
         } catch (Throwable e) {
             e.printStackTrace(); // TODO log exceptions to DB
-            throw new IOException("Error on current criterion status retrieval", e);
+            throw new IOException("Error on bulk cohort judgement write", e);
         }
-        nodeUIDs.parallelStream().forEach(node_uid -> {
-            try (Connection conn = this.datasource.getConnection()){
-                PreparedStatement nodeRetrieval = conn.prepareStatement(
-                        "SELECT nr.judgement, nr.user_comment FROM " + schema + ".NODE_RELEVANCE nr WHERE nr.job_uid = ? AND nr.node_uid = ? AND person_uid = ? AND nr.judger_uid = ? ");
-                PreparedStatement evidenceRetrieval = conn.prepareStatement(
-                        "SELECT DISTINCT e.evidence_uid, er.judgement FROM " + schema + ".EVIDENCE e " +
-                                "LEFT JOIN " + schema + ".EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid AND er.judger_uid = ? " +
-                                "WHERE e.job_uid = ? AND e.node_uid = ? AND e.person_uid = ?");
-                CriterionInfo nodeJudgement = new CriterionInfo();
-                // Check for a node-level judgement first. If there is one, override everything
-                nodeRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                nodeRetrieval.setString(2, node_uid.toUpperCase(Locale.ROOT));
-                nodeRetrieval.setString(3, personUID);
-                nodeRetrieval.setString(4, userIdForAuth(authentication));
-                ResultSet rs2 = nodeRetrieval.executeQuery();
-                if (rs2.next()) {
-                    String judgement = rs2.getString("judgement");
-                    if (judgement != null) {
-                        nodeJudgement.setJudgement(CriterionJudgement.valueOf(judgement));
-                    }
-                    nodeJudgement.setComment(rs2.getString("user_comment"));
-                }
-                rs2.close();
-                if (nodeJudgement.getJudgement() != null) {
-                    judgements.put(node_uid, nodeJudgement);
-                    return;
+    }
+
+    // Records the change in per-inclusion judgement counts for a cohort row caused by a judger changing their
+    // judgement from prior (null if none) to current
+    private static void addAdjudicationSummaryDelta(Map<Long, Map<String, Integer>> deltas, long cohortRowUID, String prior, String current) {
+        if (Objects.equals(prior, current)) {
+            return;
+        }
+        Map<String, Integer> rowDeltas = deltas.computeIfAbsent(cohortRowUID, k -> new HashMap<>());
+        if (prior != null) {
+            rowDeltas.merge(prior, -1, Integer::sum);
+        }
+        rowDeltas.merge(current, 1, Integer::sum);
+    }
+
+    /**
+     * Exclusively locks the cohort rows of the given patients, and the judger's existing judgements of them, until the
+     * current transaction ends and reads those judgements. Must be called within the transaction writing the
+     * judgements, after {@link #lockAdjudicationSummaryState}, so that concurrent writes for the same patients are
+     * serialized and summary deltas are derived from the judgements actually being replaced.
+     *
+     * @return The cohort row and current judgement of each of the patients present in the job's cohort
+     */
+    private Map<String, CohortJudgementRow> lockCohortJudgements(Connection conn, UUID jobUID, String judger, Collection<String> patientUIDs) throws SQLException {
+        Map<String, CohortJudgementRow> ret = new HashMap<>();
+        for (List<String> chunk : chunkForInClause(new ArrayList<>(patientUIDs))) {
+            int bucketSize = inClauseBucketSize(chunk.size());
+            try (PreparedStatement ps = conn.prepareStatement(sql.lockCohortRowsForPatients(dialect).forSize(bucketSize))) {
+                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                bindInClause(ps, 2, chunk, bucketSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ret.putIfAbsent(rs.getString("person_uid"), new CohortJudgementRow(rs.getLong("row_uid")));
+                    }
                 }
-                evidenceRetrieval.setString(1, userIdForAuth(authentication));
-                evidenceRetrieval.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                evidenceRetrieval.setString(3, node_uid.toUpperCase(Locale.ROOT));
-                evidenceRetrieval.setString(4, personUID);
-
-                rs2 = evidenceRetrieval.executeQuery();
-                boolean found = false;
-                CriterionJudgement evidenceJudgementState = CriterionJudgement.NO_EVIDENCE_FOUND;
-                // First, determine if there is a user judgement overriding default algorithmic matches
-                while (rs2.next()) {
-                    found = true;
-                    String judgement = rs2.getString("judgement");
-                    if (judgement != null) {
-                        CriterionJudgement parsedJudgement = CriterionJudgement.valueOf(judgement);
-                        if (evidenceJudgementState.compareTo(parsedJudgement) > 0) { // Lower priority than the parsed judgement
-                            evidenceJudgementState = parsedJudgement;
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql.lockCohortJudgementsForPatients(dialect).forSize(bucketSize))) {
+                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                ps.setString(2, judger);
+                bindInClause(ps, 3, chunk, bucketSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        CohortJudgementRow row = ret.get(rs.getString("person_uid"));
+                        if (row != null && row.cohortRowUID == rs.getLong("cohort_row_uid") && row.judgementRowUID == null) {
+                            row.judgementRowUID = rs.getLong("JUDGEMENT_ROW");
+                            row.judgement = rs.getString("judgement");
                         }
                     }
                 }
-                // Now adjust if there are no user judgements but there is evidence
-                if (found && (evidenceJudgementState.equals(CriterionJudgement.NO_EVIDENCE_FOUND))) {
-                    evidenceJudgementState = CriterionJudgement.EVIDENCE_FOUND;
+            }
+        }
+        return ret;
+    }
+
+    // The cohort row of a patient and a judger's current judgement of it, if any
+    private static class CohortJudgementRow {
+        private final long cohortRowUID;
+        private Long judgementRowUID;
+        private String judgement;
+
+        private CohortJudgementRow(long cohortRowUID) {
+            this.cohortRowUID = cohortRowUID;
+        }
+    }
+
+    /**
+     * Locks the job's adjudication summary state until the current transaction ends. Must be called at the start of
+     * any transaction writing cohort judgements, before the judgements themselves are written, so that the summary
+     * either is built before the transaction and maintained by it, or is built after it commits and includes its
+     * judgements.
+     *
+     * @return Whether the summary has been built and must be maintained by the transaction
+     */
+    private boolean lockAdjudicationSummaryState(Connection conn, UUID jobUID) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql.lockAdjudicationSummaryState(dialect))) {
+            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Applies judgement count changes to the job's adjudication summary. Must be called within the transaction
+     * writing the judgements themselves, and only if {@link #lockAdjudicationSummaryState} reported the summary as
+     * built. Otherwise the summary will be built from COHORT_RELEVANCE in full on first read.
+     */
+    private void applyAdjudicationSummaryDeltas(Connection conn, UUID jobUID, Map<Long, Map<String, Integer>> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String upsert = sql.upsertAdjudicationSummary(dialect);
+        try (PreparedStatement update = conn.prepareStatement(sql.updateAdjudicationSummary);
+             PreparedStatement increment = conn.prepareStatement(upsert == null ? sql.updateAdjudicationSummary : upsert)) {
+            boolean hasUpdates = false;
+            boolean hasIncrements = false;
+            for (Map.Entry<Long, Map<String, Integer>> row : deltas.entrySet()) {
+                for (Map.Entry<String, Integer> delta : row.getValue().entrySet()) {
+                    if (delta.getValue() == 0) {
+                        continue;
+                    }
+                    if (delta.getValue() < 0) {
+                        // A decrement always has an existing summary row, as the prior judgement was counted
+                        update.setInt(1, delta.getValue());
+                        update.setLong(2, row.getKey());
+                        update.setString(3, delta.getKey());
+                        update.addBatch();
+                        hasUpdates = true;
+                    } else if (upsert != null) {
+                        increment.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        increment.setLong(2, row.getKey());
+                        increment.setString(3, delta.getKey());
+                        increment.setInt(4, delta.getValue());
+                        increment.addBatch();
+                        hasIncrements = true;
+                    } else {
+                        incrementAdjudicationSummary(conn, jobUID, row.getKey(), delta.getKey(), delta.getValue());
+                    }
+                }
+            }
+            if (hasUpdates) {
+                update.executeBatch();
+            }
+            if (hasIncrements) {
+                increment.executeBatch();
+            }
+        }
+    }
+
+    // Fallback increment for dialects without a supported upsert. Should a concurrent writer create the summary row
+    // between the update and insert, the insert fails on the unique (cohort_row_uid, judgement) index and the update
+    // is retried against the now existing row
+    private void incrementAdjudicationSummary(Connection conn, UUID jobUID, long cohortRowUID, String judgement, int delta) throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try (PreparedStatement update = conn.prepareStatement(sql.updateAdjudicationSummary)) {
+                update.setInt(1, delta);
+                update.setLong(2, cohortRowUID);
+                update.setString(3, judgement);
+                if (update.executeUpdate() > 0) {
+                    return;
                 }
-                rs2.close();
-                nodeJudgement.setJudgement(evidenceJudgementState);
-                judgements.put(node_uid, nodeJudgement);
+            }
+            Savepoint savepoint = conn.setSavepoint();
+            try (PreparedStatement insert = conn.prepareStatement(sql.insertAdjudicationSummary)) {
+                insert.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                insert.setLong(2, cohortRowUID);
+                insert.setString(3, judgement);
+                insert.setInt(4, delta);
+                insert.executeUpdate();
+                return;
             } catch (SQLException e) {
-                throw new RuntimeException("Error retrieving evidence judgement states", e);
+                conn.rollback(savepoint);
+                if (attempt > 0 || e.getSQLState() == null || !e.getSQLState().startsWith("23")) { // Not an integrity constraint violation
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isAdjudicationSummaryBuilt(Connection conn, UUID jobUID) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql.adjudicationSummaryState)) {
+            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Builds the adjudication summary of a job from its full judgement history. Only needed once per job, for
+    // judgements recorded before the summary was introduced. The state row is inserted first so that it stays locked
+    // for the duration of the build: judgement writers wait for the build to commit and then maintain the summary,
+    // while writers already in progress hold their lock on the state row until they commit and are thus included in
+    // the snapshot. A concurrent build of the same job fails on the state row's primary key and defers to this one
+    private void buildAdjudicationSummary(Connection conn, UUID jobUID) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            for (String statement : Arrays.asList(sql.insertAdjudicationSummaryState, sql.deleteAdjudicationSummary, sql.buildAdjudicationSummary)) {
+                try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (Throwable t) {
+            conn.rollback();
+            if (t instanceof SQLException && isAdjudicationSummaryBuilt(conn, jobUID)) {
+                return; // Built concurrently
+            }
+            throw t;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    public Map<String, CriterionInfo> getCriterionMatchStatus(Authentication authentication, UUID jobUID, String personUID) throws IOException {
+        try (Connection conn = this.datasource.getConnection()) {
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
+                ParsedCriterion def = getParsedCriterionForJob(conn, jobUID);
+                if (def == null) {
+                    throw new IllegalStateException("No definition stored for job");
+                }
+                Set<String> nodeUIDs = def.getNodeUIDs();
+                // Retrieve node-level judgements and evidence judgements for all nodes at once rather than per node
+                Map<String, CriterionInfo> nodeJudgements = new HashMap<>();
+                try (PreparedStatement nodeRetrieval = conn.prepareStatement(sql.nodeRelevanceForPerson)) {
+                    nodeRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    nodeRetrieval.setString(2, personUID);
+                    nodeRetrieval.setString(3, userIdForAuth(authentication));
+                    try (ResultSet rs = nodeRetrieval.executeQuery()) {
+                        while (rs.next()) {
+                            String nodeUID = rs.getString("node_uid").toUpperCase(Locale.ROOT);
+                            if (nodeJudgements.containsKey(nodeUID)) {
+                                continue;
+                            }
+                            CriterionInfo nodeJudgement = new CriterionInfo();
+                            String judgement = rs.getString("judgement");
+                            if (judgement != null) {
+                                nodeJudgement.setJudgement(CriterionJudgement.valueOf(judgement));
+                            }
+                            nodeJudgement.setComment(rs.getString("user_comment"));
+                            nodeJudgements.put(nodeUID, nodeJudgement);
+                        }
+                    }
+                }
+                Map<String, List<CriterionJudgement>> evidenceJudgements = new HashMap<>();
+                try (PreparedStatement evidenceRetrieval = conn.prepareStatement(sql.evidenceJudgementsForPerson)) {
+                    evidenceRetrieval.setString(1, userIdForAuth(authentication));
+                    evidenceRetrieval.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                    evidenceRetrieval.setString(3, personUID);
+                    try (ResultSet rs = evidenceRetrieval.executeQuery()) {
+                        while (rs.next()) {
+                            String judgement = rs.getString("judgement");
+                            // Null entries denote evidence present without a user judgement
+                            evidenceJudgements.computeIfAbsent(rs.getString("node_uid").toUpperCase(Locale.ROOT), k -> new ArrayList<>())
+                                    .add(judgement == null ? null : CriterionJudgement.valueOf(judgement));
+                        }
+                    }
+                }
+                Map<String, CriterionInfo> judgements = new HashMap<>();
+                for (String nodeUID : nodeUIDs) {
+                    CriterionInfo nodeJudgement = nodeJudgements.getOrDefault(nodeUID, new CriterionInfo());
+                    // A node-level judgement, if present, overrides everything
+                    if (nodeJudgement.getJudgement() == null) {
+                        nodeJudgement.setJudgement(resolveEvidenceJudgementState(evidenceJudgements.get(nodeUID)));
+                    }
+                    judgements.put(nodeUID, nodeJudgement);
+                }
+                return judgements;
+            } else {
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
-        });
-        return judgements;
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on current criterion status retrieval", e);
+        }
+    }
+
+    // Determines node state from its evidence (and any user judgements thereof), with null denoting no evidence
+    private static CriterionJudgement resolveEvidenceJudgementState(List<CriterionJudgement> evidenceJudgements) {
+        if (evidenceJudgements == null || evidenceJudgements.isEmpty()) {
+            return CriterionJudgement.NO_EVIDENCE_FOUND;
+        }
+        CriterionJudgement evidenceJudgementState = CriterionJudgement.NO_EVIDENCE_FOUND;
+        // First, determine if there is a user judgement overriding default algorithmic matches
+        for (CriterionJudgement parsedJudgement : evidenceJudgements) {
+            if (parsedJudgement != null && evidenceJudgementState.compareTo(parsedJudgement) > 0) { // Lower priority than the parsed judgement
+                evidenceJudgementState = parsedJudgement;
+            }
+        }
+        // Now adjust if there are no user judgements but there is evidence
+        if (evidenceJudgementState.equals(CriterionJudgement.NO_EVIDENCE_FOUND)) {
+            evidenceJudgementState = CriterionJudgement.EVIDENCE_FOUND;
+        }
+        return evidenceJudgementState;
     }
 
     private void recursSearchNodeUIDsFromDef(Criterion def, Set<String> nodeUIDs) {
@@ -453,26 +904,82 @@ public class JDBCBackedStorage {
         }
     }
 
+    private ParsedCriterion getParsedCriterionForJob(Connection conn, UUID jobUID) throws SQLException, JsonProcessingException {
+        long rowUID;
+        try (PreparedStatement ps = conn.prepareStatement(sql.jobCriterion)) {
+            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                rowUID = rs.getLong("criterion_uid");
+            }
+        }
+        return getParsedCriterion(conn, rowUID);
+    }
+
+    private ParsedCriterion getLatestParsedCriterionForProject(Connection conn, UUID projectUID) throws SQLException, JsonProcessingException {
+        long rowUID;
+        try (PreparedStatement ps = conn.prepareStatement(sql.latestProjectCriterion)) {
+            ps.setMaxRows(1);
+            ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                rowUID = rs.getLong("row_uid");
+            }
+        }
+        return getParsedCriterion(conn, rowUID);
+    }
+
+    // Criterion rows are insert-only, so the criterion JSON is only retrieved and parsed the first time a row is seen
+    private ParsedCriterion getParsedCriterion(Connection conn, long rowUID) throws SQLException, JsonProcessingException {
+        ParsedCriterion cached = criterionCache.get(rowUID);
+        if (cached != null) {
+            return cached;
+        }
+        Criterion def;
+        try (PreparedStatement ps = conn.prepareStatement(sql.projectCriterion)) {
+            ps.setLong(1, rowUID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                def = om.get().readValue(rs.getString("criterion"), Criterion.class);
+            }
+        }
+        Set<String> nodeUIDs = new HashSet<>();
+        recursSearchNodeUIDsFromDef(def, nodeUIDs);
+        ParsedCriterion parsed = new ParsedCriterion(rowUID, def, Collections.unmodifiableSet(nodeUIDs));
+        criterionCache.put(rowUID, parsed);
+        return parsed;
+    }
+
 
     public Map<String, CriterionInfo> setCriterionMatchStatus(Authentication authentication, UUID jobUID, UUID nodeUID, String personUID, CriterionInfo judgement) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
-                PreparedStatement ps = conn.prepareStatement("UPDATE " + schema + ".NODE_RELEVANCE SET judgement = ?, user_comment = ? WHERE job_uid = ? AND node_uid = ? AND person_uid = ? AND judger_uid = ? ");
-                ps.setString(1, judgement.getJudgement() == null ? null : judgement.getJudgement().name());
-                ps.setString(2, judgement.getComment());
-                ps.setString(3, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(4, nodeUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(5, personUID);
-                ps.setString(6, userIdForAuth(authentication));
-                if (ps.executeUpdate() == 0) { // No preexisting row
-                    ps = conn.prepareStatement("INSERT INTO " + schema + ".NODE_RELEVANCE (job_uid, node_uid, person_uid, judger_uid, judgement, user_comment) VALUES (?, ?, ?, ?, ?, ?)");
-                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(3, personUID);
-                    ps.setString(4, userIdForAuth(authentication));
-                    ps.setString(5, judgement.getJudgement() == null ? null : judgement.getJudgement().name());
-                    ps.setString(6, judgement.getComment());
-                    ps.executeUpdate();
+                int updated;
+                try (PreparedStatement ps = conn.prepareStatement(sql.updateNodeRelevance)) {
+                    ps.setString(1, judgement.getJudgement() == null ? null : judgement.getJudgement().name());
+                    ps.setString(2, judgement.getComment());
+                    ps.setString(3, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(4, nodeUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(5, personUID);
+                    ps.setString(6, userIdForAuth(authentication));
+                    updated = ps.executeUpdate();
+                }
+                if (updated == 0) { // No preexisting row
+                    try (PreparedStatement ps = conn.prepareStatement(sql.insertNodeRelevance)) {
+                        ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setString(3, personUID);
+                        ps.setString(4, userIdForAuth(authentication));
+                        ps.setString(5, judgement.getJudgement() == null ? null : judgement.getJudgement().name());
+                        ps.setString(6, judgement.getComment());
+                        ps.executeUpdate();
+                    }
                 }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
@@ -484,14 +991,94 @@ public class JDBCBackedStorage {
         return getCriterionMatchStatus(authentication, jobUID, personUID);
     }
 
+    /**
+     * Writes multiple criterion match judgements for a job in a single transaction
+     *
+     * @return The number of judgements written
+     */
+    public int setCriterionMatchStatuses(Authentication authentication, UUID jobUID, List<CriterionMatchUpdate> judgements) throws IOException {
+        try (Connection conn = this.datasource.getConnection()) {
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
+                String judger = userIdForAuth(authentication);
+                // Later judgements for the same node and person supersede earlier ones
+                Map<String, CriterionMatchUpdate> byKey = new LinkedHashMap<>();
+                Set<String> personUIDs = new LinkedHashSet<>();
+                for (CriterionMatchUpdate judgement : judgements) {
+                    byKey.put(judgement.getNodeUID().toString().toUpperCase(Locale.ROOT) + "|" + judgement.getPersonUID(), judgement);
+                    personUIDs.add(judgement.getPersonUID());
+                }
+                if (byKey.isEmpty()) {
+                    return 0;
+                }
+                Set<String> existing = new HashSet<>();
+                for (List<String> chunk : chunkForInClause(new ArrayList<>(personUIDs))) {
+                    int bucketSize = inClauseBucketSize(chunk.size());
+                    try (PreparedStatement checkExists = conn.prepareStatement(sql.nodeRelevanceKeysForPersons.forSize(bucketSize))) {
+                        checkExists.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        checkExists.setString(2, judger);
+                        bindInClause(checkExists, 3, chunk, bucketSize);
+                        try (ResultSet rs = checkExists.executeQuery()) {
+                            while (rs.next()) {
+                                existing.add(rs.getString("node_uid").toUpperCase(Locale.ROOT) + "|" + rs.getString("person_uid"));
+                            }
+                        }
+                    }
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement update = conn.prepareStatement(sql.updateNodeRelevance);
+                     PreparedStatement insert = conn.prepareStatement(sql.insertNodeRelevance)) {
+                    boolean hasUpdates = false;
+                    boolean hasInserts = false;
+                    for (Map.Entry<String, CriterionMatchUpdate> entry : byKey.entrySet()) {
+                        CriterionMatchUpdate judgement = entry.getValue();
+                        String judgementName = judgement.getJudgement() == null || judgement.getJudgement().getJudgement() == null
+                                ? null : judgement.getJudgement().getJudgement().name();
+                        String comment = judgement.getJudgement() == null ? null : judgement.getJudgement().getComment();
+                        if (existing.contains(entry.getKey())) {
+                            update.setString(1, judgementName);
+                            update.setString(2, comment);
+                            update.setString(3, jobUID.toString().toUpperCase(Locale.ROOT));
+                            update.setString(4, judgement.getNodeUID().toString().toUpperCase(Locale.ROOT));
+                            update.setString(5, judgement.getPersonUID());
+                            update.setString(6, judger);
+                            update.addBatch();
+                            hasUpdates = true;
+                        } else {
+                            insert.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            insert.setString(2, judgement.getNodeUID().toString().toUpperCase(Locale.ROOT));
+                            insert.setString(3, judgement.getPersonUID());
+                            insert.setString(4, judger);
+                            insert.setString(5, judgementName);
+                            insert.setString(6, comment);
+                            insert.addBatch();
+                            hasInserts = true;
+                        }
+                    }
+                    int written = (hasUpdates ? sumBatchCounts(update.executeBatch()) : 0)
+                            + (hasInserts ? sumBatchCounts(insert.executeBatch()) : 0);
+                    conn.commit();
+                    return written;
+                } catch (Throwable t) {
+                    conn.rollback();
+                    throw t;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } else {
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on bulk criterion status write", e);
+        }
+    }
+
     public Criterion getJobCriterion(Authentication authentication, UUID jobUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement("SELECT c.criterion FROM " + schema + ".AUDIT_LOG a JOIN " + schema + ".PROJECT_CRITERION c ON a.criterion_uid = c.row_uid WHERE job_uid = ?");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    return om.get().readValue(rs.getString(1), Criterion.class);
+                ParsedCriterion parsed = getParsedCriterionForJob(conn, jobUID);
+                if (parsed != null) {
+                    return parsed.getCriterion();
                 }
             }
             return null;
@@ -504,11 +1091,7 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             UUID projectUID = getProjectUIDForJob(conn, jobUID);
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement("SELECT data_sources FROM " + schema + ".project_data_sources WHERE project_uid = ?");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                rs.next();
-                return om.get().readValue(rs.getString("data_source"), new TypeReference<>() {});
+                return readProjectDataSources(conn, projectUID);
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -524,23 +1107,40 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
                 Map<String, CriterionJudgement> ret = new HashMap<>();
-                PreparedStatement ps = conn.prepareStatement("SELECT er.judgement " +
-                        "FROM " + schema + ".EVIDENCE e " +
-                        "JOIN " + schema + ".EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid " +
-                        "WHERE e.job_uid = ? AND e.evidence_uid = ? AND e.node_uid = ? AND er.judger_uid = ?");
-                for (String evidenceUID : evidenceUIDs) { // Do one-by-one search because not all JDBC drivers support IN clauses...
-                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(2, evidenceUID);
-                    ps.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(4, userIdForAuth(authentication));
-                    ResultSet rs = ps.executeQuery();
-                    if (rs.next()) {
-                        ret.put(evidenceUID, CriterionJudgement.valueOf(rs.getString("judgement")));
-                    } else {
-                        ret.put(evidenceUID, CriterionJudgement.UNJUDGED);
+                if (config.getPersistence().isBulkLookups()) {
+                    for (List<String> chunk : chunkForInClause(Arrays.asList(evidenceUIDs))) {
+                        int bucketSize = inClauseBucketSize(chunk.size());
+                        try (PreparedStatement ps = conn.prepareStatement(sql.evidenceRelevanceForEvidence.forSize(bucketSize))) {
+                            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(3, userIdForAuth(authentication));
+                            bindInClause(ps, 4, chunk, bucketSize);
+                            try (ResultSet rs = ps.executeQuery()) {
+                                while (rs.next()) {
+                                    ret.putIfAbsent(rs.getString("evidence_uid"), CriterionJudgement.valueOf(rs.getString("judgement")));
+                                }
+                            }
+                        }
                     }
-                }
-                return ret;
+                } else {
+                    try (PreparedStatement ps = conn.prepareStatement(sql.evidenceRelevanceForSingleEvidence)) {
+                        for (String evidenceUID : evidenceUIDs) { // Do one-by-one search for drivers that do not support IN clauses
+                            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(2, evidenceUID);
+                            ps.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(4, userIdForAuth(authentication));
+                            try (ResultSet rs = ps.executeQuery()) {
+                                if (rs.next()) {
+                                    ret.put(evidenceUID, CriterionJudgement.valueOf(rs.getString("judgement")));
+                                }
+                            }
+                        }
+                    }
+                }
+                for (String evidenceUID : evidenceUIDs) {
+                    ret.putIfAbsent(evidenceUID, CriterionJudgement.UNJUDGED);
+                }
+                return ret;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -554,35 +1154,34 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
                 // Manually check exists instead of using MERGE because not all SQL dialects support it
-                PreparedStatement checkExists = conn.prepareStatement(
-                        "SELECT e.row_uid, er.row_uid AS JUDGEMENT_ROW, er.judgement FROM " + schema + ".EVIDENCE e " +
-                                "LEFT JOIN " + schema + ".EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid AND er.judger_uid = ? " +
-                                "WHERE e.job_uid = ? AND e.node_uid = ? AND e.evidence_uid = ? ");
-                checkExists.setString(1, userIdForAuth(authentication));
-                checkExists.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                checkExists.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
-                checkExists.setString(4, evidenceUID);
-                ResultSet rs = checkExists.executeQuery();
-                if (rs.next()) {
-                    long rowUID = rs.getLong("row_uid");
-                    if (rs.getString("judgement") != null) { // preexisting relevance
-                        PreparedStatement ps = conn.prepareStatement(
-                                "UPDATE " + schema + ".EVIDENCE_RELEVANCE " +
-                                        "SET judgement = ? " +
-                                        "WHERE row_uid = ?");
+                long rowUID;
+                Long judgementRow;
+                try (PreparedStatement checkExists = conn.prepareStatement(sql.evidenceJudgementRowForEvidence)) {
+                    checkExists.setString(1, userIdForAuth(authentication));
+                    checkExists.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                    checkExists.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
+                    checkExists.setString(4, evidenceUID);
+                    try (ResultSet rs = checkExists.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new IllegalStateException("Attempted to create judgement on evidence " + evidenceUID + " that does not exist in job " + jobUID + " and node " + nodeUID);
+                        }
+                        rowUID = rs.getLong("row_uid");
+                        judgementRow = rs.getString("judgement") != null ? rs.getLong("JUDGEMENT_ROW") : null;
+                    }
+                }
+                if (judgementRow != null) { // preexisting relevance
+                    try (PreparedStatement ps = conn.prepareStatement(sql.updateEvidenceRelevance)) {
                         ps.setString(1, judgement.name());
-                        ps.setLong(2, rs.getLong("JUDGEMENT_ROW"));
+                        ps.setLong(2, judgementRow);
                         return ps.executeUpdate() > 0;
-                    } else {
-                        PreparedStatement ps = conn.prepareStatement(
-                                "INSERT INTO " + schema + ".EVIDENCE_RELEVANCE (evidence_row_uid, judger_uid, judgement) VALUES (?, ?, ?)");
+                    }
+                } else {
+                    try (PreparedStatement ps = conn.prepareStatement(sql.insertEvidenceRelevance)) {
                         ps.setLong(1, rowUID);
                         ps.setString(2, userIdForAuth(authentication));
                         ps.setString(3, judgement.name());
                         return ps.executeUpdate() > 0;
                     }
-                } else {
-                    throw new IllegalStateException("Attempted to create judgement on evidence " + evidenceUID + " that does not exist in job " + jobUID + " and node " + nodeUID);
                 }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
@@ -593,24 +1192,107 @@ public class JDBCBackedStorage {
         }
     }
 
+    /**
+     * Writes multiple evidence match judgements for a job in a single transaction. Either all judgements are
+     * written or, if any evidence does not exist for its node in the job, none are.
+     *
+     * @return The number of judgements written
+     */
+    public int writeEvidenceJudgements(Authentication authentication, UUID jobUID, List<EvidenceJudgementUpdate> judgements) throws IOException {
+        try (Connection conn = this.datasource.getConnection()) {
+            if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
+                String judger = userIdForAuth(authentication);
+                // Later judgements for the same node and evidence supersede earlier ones
+                Map<String, EvidenceJudgementUpdate> byKey = new LinkedHashMap<>();
+                Set<String> evidenceUIDs = new LinkedHashSet<>();
+                for (EvidenceJudgementUpdate judgement : judgements) {
+                    byKey.put(judgement.getNodeUID().toString().toUpperCase(Locale.ROOT) + "|" + judgement.getEvidenceUID(), judgement);
+                    evidenceUIDs.add(judgement.getEvidenceUID());
+                }
+                if (byKey.isEmpty()) {
+                    return 0;
+                }
+                // Evidence row and existing judgement row (or null) by node and evidence UID
+                Map<String, Long[]> existing = new HashMap<>();
+                for (List<String> chunk : chunkForInClause(new ArrayList<>(evidenceUIDs))) {
+                    int bucketSize = inClauseBucketSize(chunk.size());
+                    try (PreparedStatement checkExists = conn.prepareStatement(sql.evidenceJudgementRowsForEvidence.forSize(bucketSize))) {
+                        checkExists.setString(1, judger);
+                        checkExists.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                        bindInClause(checkExists, 3, chunk, bucketSize);
+                        try (ResultSet rs = checkExists.executeQuery()) {
+                            while (rs.next()) {
+                                String key = rs.getString("node_uid").toUpperCase(Locale.ROOT) + "|" + rs.getString("evidence_uid");
+                                long judgementRow = rs.getLong("JUDGEMENT_ROW");
+                                existing.putIfAbsent(key, new Long[]{rs.getLong("row_uid"), rs.wasNull() ? null : judgementRow});
+                            }
+                        }
+                    }
+                }
+                for (Map.Entry<String, EvidenceJudgementUpdate> judgement : byKey.entrySet()) {
+                    if (!existing.containsKey(judgement.getKey())) {
+                        throw new IllegalStateException("Attempted to create judgement on evidence " + judgement.getValue().getEvidenceUID() +
+                                " that does not exist in job " + jobUID + " and node " + judgement.getValue().getNodeUID());
+                    }
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement update = conn.prepareStatement(sql.updateEvidenceRelevance);
+                     PreparedStatement insert = conn.prepareStatement(sql.insertEvidenceRelevance)) {
+                    boolean hasUpdates = false;
+                    boolean hasInserts = false;
+                    for (Map.Entry<String, EvidenceJudgementUpdate> judgement : byKey.entrySet()) {
+                        Long[] rows = existing.get(judgement.getKey());
+                        if (rows[1] != null) { // preexisting relevance
+                            update.setString(1, judgement.getValue().getJudgement().name());
+                            update.setLong(2, rows[1]);
+                            update.addBatch();
+                            hasUpdates = true;
+                        } else {
+                            insert.setLong(1, rows[0]);
+                            insert.setString(2, judger);
+                            insert.setString(3, judgement.getValue().getJudgement().name());
+                            insert.addBatch();
+                            hasInserts = true;
+                        }
+                    }
+                    int written = (hasUpdates ? sumBatchCounts(update.executeBatch()) : 0)
+                            + (hasInserts ? sumBatchCounts(insert.executeBatch()) : 0);
+                    conn.commit();
+                    return written;
+                } catch (Throwable t) {
+                    conn.rollback();
+                    throw t;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } else {
+                throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on bulk evidence judgement write", e);
+        }
+    }
+
     public List<Evidence> getEvidenceForNode(
             Authentication authentication, UUID jobUID, UUID nodeUID, String personUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT evidence_uid, score FROM " + schema + ".EVIDENCE WHERE job_uid = ? AND node_uid = ? AND person_uid = ? ORDER BY score DESC");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(3, personUID);
-                ResultSet rs = ps.executeQuery();
-                List<Evidence> ret = new ArrayList<>();
-                while (rs.next()) {
-                    Evidence evidence = new Evidence();
-                    evidence.setEvidenceUID(rs.getString("evidence_uid"));
-                    evidence.setScore(rs.getDouble("score"));
-                    ret.add(evidence);
+                try (PreparedStatement ps = conn.prepareStatement(sql.evidenceForNode)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(3, personUID);
+                    List<Evidence> ret = new ArrayList<>();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Evidence evidence = new Evidence();
+                            evidence.setEvidenceUID(rs.getString("evidence_uid"));
+                            evidence.setScore(rs.getDouble("score"));
+                            ret.add(evidence);
+                        }
+                    }
+                    return ret;
                 }
-                return ret;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -623,21 +1305,20 @@ public class JDBCBackedStorage {
     // ===== Job Related Methods =====/
 
     public List<Job> getJobsForUser(Authentication authentication) throws IOException {
-        try (Connection conn = this.datasource.getConnection()) {
-            // No need to check user authority to read own jobs
+        try (Connection conn = this.datasource.getConnection();
+             // No need to check user authority to read own jobs
+             PreparedStatement ps = conn.prepareStatement(sql.jobsForUser)) {
             List<Job> ret = new ArrayList<>();
-            PreparedStatement ps = conn.prepareStatement(
-                    "SELECT job_uid, project_uid, start_dtm, user_uid, job_status " +
-                            "FROM " + schema + ".AUDIT_LOG WHERE user_uid = ? AND archived != 1 ORDER BY start_dtm DESC");
             ps.setString(1, userIdForAuth(authentication));
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                Job info = new Job();
-                info.setProjectUID(UUID.fromString(rs.getString("project_uid")));
-                info.setStartDate(rs.getTimestamp("start_dtm"));
-                info.setStatus(JobStatus.forCode(rs.getInt("job_status")));
-                info.setJobUID(UUID.fromString(rs.getString("job_uid")));
-                ret.add(info);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Job info = new Job();
+                    info.setProjectUID(UUID.fromString(rs.getString("project_uid")));
+                    info.setStartDate(rs.getTimestamp("start_dtm"));
+                    info.setStatus(JobStatus.forCode(rs.getInt("job_status")));
+                    info.setJobUID(UUID.fromString(rs.getString("job_uid")));
+                    ret.add(info);
+                }
             }
             return ret;
 
@@ -651,18 +1332,18 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             List<Job> ret = new ArrayList<>();
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.READ)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT job_uid, start_dtm, user_uid, job_status FROM " + schema + ".AUDIT_LOG " +
-                                "WHERE project_uid = ? AND archived != 1 ORDER BY start_dtm DESC");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                while (rs.next()) {
-                    Job info = new Job();
-                    info.setProjectUID(projectUID);
-                    info.setStartDate(rs.getTimestamp("start_dtm"));
-                    info.setStatus(JobStatus.forCode(rs.getInt("job_status")));
-                    info.setJobUID(UUID.fromString(rs.getString("job_uid")));
-                    ret.add(info);
+                try (PreparedStatement ps = conn.prepareStatement(sql.jobsForProject)) {
+                    ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Job info = new Job();
+                            info.setProjectUID(projectUID);
+                            info.setStartDate(rs.getTimestamp("start_dtm"));
+                            info.setStatus(JobStatus.forCode(rs.getInt("job_status")));
+                            info.setJobUID(UUID.fromString(rs.getString("job_uid")));
+                            ret.add(info);
+                        }
+                    }
                 }
                 return ret;
             } else {
@@ -679,46 +1360,33 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, projectUID, authentication, ProjectAuthorityGrant.EXECUTE)) {
                 // Use Current/Latest criterion by date
-                PreparedStatement ps = conn.prepareStatement("SELECT row_uid, criterion FROM " + schema + ".PROJECT_CRITERION p WHERE project_uid = ? ORDER BY revision_date DESC");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                long criterionRowID;
-                Criterion criterion;
-                if (rs.next()) {
-                    criterionRowID = rs.getLong("row_uid");
-                    criterion = om.get().readValue(rs.getString("criterion"), Criterion.class);
-                } else {
+                ParsedCriterion parsed = getLatestParsedCriterionForProject(conn, projectUID);
+                if (parsed == null) {
                     throw new IllegalArgumentException("Project " + projectUID + " has no active criterion stored");
                 }
-                rs.close();
-                // Create the audit record first so that if the executor starts right away it has information to retrieve
+                long criterionRowID = parsed.getRowUID();
+                Criterion criterion = parsed.getCriterion();
+                // Create the audit record first so that if the executor starts right away it has information to retrieve.
+                // The job itself is submitted to the executor in the background, see AuditLogDispatchCallback
                 UUID jobUID = UUID.randomUUID();
                 long jobTimestamp = System.currentTimeMillis();
-                ps = conn.prepareStatement("INSERT INTO " + schema + ".AUDIT_LOG (project_uid, job_uid, criterion_uid, user_uid, start_dtm, job_status) VALUES (?, ?, ?, ?, ?, ?)");
-                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.setLong(3, criterionRowID);
-                ps.setString(4, userIdForAuth(authentication));
-                ps.setTimestamp(5, new Timestamp(jobTimestamp));
-                ps.setInt(6, JobStatus.QUEUED.getCode());
-                if (ps.executeUpdate() < 1) {
-                    throw new IOException("No rows updated in audit log for job creation");
-                }
-                // Now actually attempt to start the job
-                String executorJobUID;
-                try {
-                    executorJobUID = jobExecutor.getExecutor().startJob(jobUID, criterion, config.getApplicationURL());
-                } catch (Throwable t) {
-                    // Delete the audit record as the job never actually started
-                    ps = conn.prepareStatement("DELETE FROM " + schema + ".AUDIT_LOG WHERE job_uid = ?");
-                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                    ps.executeUpdate();
-                    throw new IOException("Failed to start job execution", t);
+                try (PreparedStatement ps = conn.prepareStatement(sql.insertJob)) {
+                    ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setLong(3, criterionRowID);
+                    ps.setString(4, userIdForAuth(authentication));
+                    ps.setTimestamp(5, new Timestamp(jobTimestamp));
+                    ps.setInt(6, JobStatus.QUEUED.getCode());
+                    if (ps.executeUpdate() < 1) {
+                        throw new IOException("No rows updated in audit log for job creation");
+                    }
                 }
-                ps = conn.prepareStatement("UPDATE " + schema + ".AUDIT_LOG SET executor_job_uid = ? where job_uid = ?");
-                ps.setString(1, executorJobUID);
-                ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.executeUpdate(); // TODO handle update fails(?) Problem is job is eventually still queued anyways at this point
+                long cohortSize = estimateCohortSize(conn, projectUID);
+                // Results are only copied if the backend the job is routed to has declared that it will skip them
+                Map<UUID, ReusedNodeResult> reusedNodes = config.getJobDispatch().isSubtreeReuseEnabled() && jobExecutor.supportsReusedNodes(cohortSize)
+                        ? planSubtreeReuse(conn, projectUID, jobUID, criterion) : Collections.emptyMap();
+                jobExecutor.dispatch(jobUID, projectUID, userIdForAuth(authentication), criterion, config.getApplicationURL(),
+                        cohortSize, reusedNodes, new AuditLogDispatchCallback(jobUID));
                 Job ret = new Job();
                 ret.setJobUID(jobUID);
                 ret.setProjectUID(projectUID);
@@ -735,13 +1403,295 @@ public class JDBCBackedStorage {
         }
     }
 
+    /**
+     * Resubmits jobs that were queued but never accepted by the executor, e.g. due to a restart while awaiting
+     * submission
+     */
+    @PostConstruct
+    public void recoverQueuedJobs() {
+        if (!config.getJobDispatch().isRecoverQueuedJobs()) {
+            return;
+        }
+        try (Connection conn = this.datasource.getConnection()) {
+            List<String[]> pending = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql.queuedJobs)) {
+                ps.setInt(1, JobStatus.QUEUED.getCode());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        pending.add(new String[]{rs.getString("job_uid"), rs.getString("project_uid"), rs.getString("user_uid"), rs.getString("criterion_uid")});
+                    }
+                }
+            }
+            for (String[] job : pending) {
+                UUID jobUID = UUID.fromString(job[0]);
+                ParsedCriterion criterion = getParsedCriterion(conn, Long.parseLong(job[3]));
+                if (criterion == null) {
+                    System.out.println("Cannot resubmit job " + jobUID + " as its criterion no longer exists");
+                    continue;
+                }
+                System.out.println("Resubmitting queued job " + jobUID);
+                long cohortSize = estimateCohortSize(conn, UUID.fromString(job[1]));
+                // Reused results were already copied on initial submission, only the plan itself is needed
+                Map<UUID, ReusedNodeResult> reusedNodes = getReusedNodes(conn, jobUID);
+                if (!reusedNodes.isEmpty() && !jobExecutor.supportsReusedNodes(cohortSize)) {
+                    // The job is now routed to a backend that would re-evaluate the copied nodes, so run it in full
+                    System.out.println("Discarding reused results of job " + jobUID + " as its executor does not support reuse");
+                    discardReusedNodes(conn, jobUID, reusedNodes.keySet());
+                    reusedNodes = Collections.emptyMap();
+                }
+                jobExecutor.dispatch(jobUID, UUID.fromString(job[1]), job[2], criterion.getCriterion(), config.getApplicationURL(),
+                        cohortSize, reusedNodes, new AuditLogDispatchCallback(jobUID));
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+        }
+    }
+
+    // Records the outcome of background job submission in the audit log
+    private class AuditLogDispatchCallback implements JobDispatchCallback {
+        private final String jobUID;
+
+        private AuditLogDispatchCallback(UUID jobUID) {
+            this.jobUID = jobUID.toString().toUpperCase(Locale.ROOT);
+        }
+
+        @Override
+        public boolean isAwaitingDispatch() throws SQLException {
+            try (Connection conn = datasource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql.awaitingDispatchJobStatus)) {
+                ps.setString(1, jobUID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() && rs.getInt("job_status") == JobStatus.QUEUED.getCode();
+                }
+            }
+        }
+
+        @Override
+        public void onStarted(String executorJobUID) throws SQLException {
+            try (Connection conn = datasource.getConnection()) {
+                try (PreparedStatement ps = conn.prepareStatement(sql.setExecutorJobUID)) {
+                    // A non-null value marks the job as submitted so that it is not resubmitted on restart
+                    ps.setString(1, executorJobUID == null ? UNTRACKED_EXECUTOR_JOB_UID : executorJobUID);
+                    ps.setString(2, jobUID);
+                    ps.executeUpdate();
+                }
+                // The job may have been cancelled while its submission was in progress, in which case stop it right away
+                boolean cancelled;
+                try (PreparedStatement ps = conn.prepareStatement(sql.jobStatus)) {
+                    ps.setString(1, jobUID);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        cancelled = rs.next() && rs.getInt("job_status") == -2;
+                    }
+                }
+                if (executorJobUID != null && cancelled) {
+                    jobExecutor.cancel(UUID.fromString(jobUID), executorJobUID);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasTerminated() throws SQLException {
+            try (Connection conn = datasource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql.jobStatus)) {
+                ps.setString(1, jobUID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return !rs.next() || isTerminalJobStatus(rs.getInt("job_status"));
+                }
+            }
+        }
+
+        @Override
+        public void onFailed(Throwable cause) throws SQLException {
+            try (Connection conn = datasource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql.failQueuedJob)) {
+                ps.setString(1, jobUID);
+                ps.setInt(2, JobStatus.QUEUED.getCode());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    // Estimates the cohort size of a new job for a project from the project's most recent completed job, -1 if none
+    private long estimateCohortSize(Connection conn, UUID projectUID) throws SQLException {
+        String priorJobUID;
+        try (PreparedStatement ps = conn.prepareStatement(sql.latestCompletedJob)) {
+            ps.setMaxRows(1);
+            ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                priorJobUID = rs.getString("job_uid");
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.cohortSize)) {
+            ps.setString(1, priorJobUID);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Records subtree fingerprints for a new job and copies the evidence of each subtree left unchanged since a
+     * recent completed job of the same project into the new job, so that the executor need not re-evaluate them.
+     * Reuse is best-effort: on failure, nothing is copied and the job runs in full.
+     *
+     * @return The reused criterion nodes of the new job and the prior job results they were copied from
+     */
+    private Map<UUID, ReusedNodeResult> planSubtreeReuse(Connection conn, UUID projectUID, UUID jobUID, Criterion criterion) {
+        try {
+            String dataSources;
+            try (PreparedStatement ps = conn.prepareStatement(sql.projectDataSources)) {
+                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                try (ResultSet rs = ps.executeQuery()) {
+                    dataSources = rs.next() ? rs.getString("data_sources") : null;
+                }
+            }
+            LinkedHashMap<UUID, String> fingerprints = CriterionFingerprints.compute(criterion, dataSources, om.get());
+            // Candidate prior results by fingerprint, most recent first
+            Map<String, List<ReusedNodeResult>> candidates = new HashMap<>();
+            long minStart = System.currentTimeMillis() - config.getJobDispatch().getSubtreeReuseMaxAgeSeconds() * 1000L;
+            for (List<String> chunk : chunkForInClause(new ArrayList<>(new HashSet<>(fingerprints.values())))) {
+                int bucketSize = inClauseBucketSize(chunk.size());
+                try (PreparedStatement ps = conn.prepareStatement(sql.reusableNodeFingerprints.forSize(bucketSize))) {
+                    ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setTimestamp(2, new Timestamp(minStart));
+                    bindInClause(ps, 3, chunk, bucketSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            candidates.computeIfAbsent(rs.getString("fingerprint"), k -> new ArrayList<>())
+                                    .add(new ReusedNodeResult(UUID.fromString(rs.getString("job_uid")), UUID.fromString(rs.getString("node_uid"))));
+                        }
+                    }
+                }
+            }
+            Map<UUID, ReusedNodeResult> reused = new LinkedHashMap<>();
+            assignReusedNodes(criterion, null, fingerprints, candidates, reused);
+
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(sql.insertNodeFingerprint)) {
+                    for (Map.Entry<UUID, String> fingerprint : fingerprints.entrySet()) {
+                        ReusedNodeResult source = reused.get(fingerprint.getKey());
+                        ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setString(2, fingerprint.getKey().toString().toUpperCase(Locale.ROOT));
+                        ps.setString(3, fingerprint.getValue());
+                        ps.setString(4, source == null ? null : source.getJobUID().toString().toUpperCase(Locale.ROOT));
+                        ps.setString(5, source == null ? null : source.getNodeUID().toString().toUpperCase(Locale.ROOT));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                if (!reused.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(sql.copyEvidence)) {
+                        for (Map.Entry<UUID, ReusedNodeResult> node : reused.entrySet()) {
+                            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                            ps.setString(2, node.getKey().toString().toUpperCase(Locale.ROOT));
+                            ps.setString(3, node.getValue().getJobUID().toString().toUpperCase(Locale.ROOT));
+                            ps.setString(4, node.getValue().getNodeUID().toString().toUpperCase(Locale.ROOT));
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (Throwable t) {
+                conn.rollback();
+                throw t;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            if (!reused.isEmpty()) {
+                System.out.println("Job " + jobUID + " reuses results for " + reused.size() + " of " + fingerprints.size() + " criterion nodes");
+            }
+            return reused;
+        } catch (Throwable e) {
+            System.out.println("Could not plan criterion result reuse for job " + jobUID + ", running in full");
+            e.printStackTrace(); // TODO log exceptions to DB
+            return Collections.emptyMap();
+        }
+    }
+
+    // Reuses the most recent matching result for the top-most unchanged subtrees. Descendants of a reused node are
+    // taken from the same prior job so that the reused subtree remains internally consistent
+    private void assignReusedNodes(Criterion node, UUID sourceJobUID, Map<UUID, String> fingerprints,
+                                   Map<String, List<ReusedNodeResult>> candidates, Map<UUID, ReusedNodeResult> out) {
+        ReusedNodeResult source = null;
+        for (ReusedNodeResult candidate : candidates.getOrDefault(fingerprints.get(node.getNodeUID()), Collections.emptyList())) {
+            if (sourceJobUID == null || sourceJobUID.equals(candidate.getJobUID())) {
+                source = candidate;
+                break;
+            }
+        }
+        if (source != null) {
+            out.put(node.getNodeUID(), source);
+        }
+        if (node instanceof LogicalCriterion) {
+            for (Criterion child : ((LogicalCriterion) node).getChildren()) {
+                assignReusedNodes(child, source == null ? null : source.getJobUID(), fingerprints, candidates, out);
+            }
+        }
+    }
+
+    // Retrieves the reuse plan recorded on a job's initial submission
+    private Map<UUID, ReusedNodeResult> getReusedNodes(Connection conn, UUID jobUID) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql.reusedNodes)) {
+            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+            Map<UUID, ReusedNodeResult> ret = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ret.put(UUID.fromString(rs.getString("node_uid")),
+                            new ReusedNodeResult(UUID.fromString(rs.getString("reused_job_uid")), UUID.fromString(rs.getString("reused_node_uid"))));
+                }
+            }
+            return ret;
+        }
+    }
+
+    // Removes the evidence copied for a job's reused nodes along with the reuse plan itself
+    private void discardReusedNodes(Connection conn, UUID jobUID, Collection<UUID> nodeUIDs) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = conn.prepareStatement(sql.deleteNodeEvidence)) {
+                for (UUID nodeUID : nodeUIDs) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql.clearReusedNodes)) {
+                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                ps.executeUpdate();
+            }
+            conn.commit();
+        } catch (Throwable t) {
+            conn.rollback();
+            throw t;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Completed (3), failed (-1), and cancelled (-2) jobs
+    private static boolean isTerminalJobStatus(int code) {
+        return code == 3 || code == -1 || code == -2;
+    }
+
     public boolean setJobStatus(Authentication authentication, UUID jobUID, JobStatus status) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.EXECUTE)) {
-                PreparedStatement ps = conn.prepareStatement("UPDATE " + schema + ".AUDIT_LOG SET job_status = ? WHERE job_uid = ?");
-                ps.setInt(1, status.getCode());
-                ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                return ps.executeUpdate() > 0;
+                boolean updated;
+                try (PreparedStatement ps = conn.prepareStatement(sql.setJobStatus)) {
+                    ps.setInt(1, status.getCode());
+                    ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                    updated = ps.executeUpdate() > 0;
+                }
+                if (updated && isTerminalJobStatus(status.getCode())) {
+                    jobExecutor.onJobTerminated(jobUID);
+                }
+                return updated;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.EXECUTE.name());
             }
@@ -754,9 +1704,27 @@ public class JDBCBackedStorage {
     public boolean cancelJobRecord(Authentication authentication, UUID jobUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.EXECUTE)) {
-                PreparedStatement ps = conn.prepareStatement("UPDATE " + schema + ".AUDIT_LOG SET job_status = -2 WHERE job_uid = ? AND job_status NOT IN (3, -1)");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                return ps.executeUpdate() > 0;
+                boolean updated;
+                try (PreparedStatement ps = conn.prepareStatement(sql.cancelJob)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    updated = ps.executeUpdate() > 0;
+                }
+                if (updated) {
+                    // Also stop the job on the executor if it has already been submitted so that it frees its resources
+                    String executorJobUID;
+                    try (PreparedStatement ps = conn.prepareStatement(sql.executorJobUID)) {
+                        ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        try (ResultSet rs = ps.executeQuery()) {
+                            executorJobUID = rs.next() ? rs.getString("executor_job_uid") : null;
+                        }
+                    }
+                    if (executorJobUID != null && !executorJobUID.equals(UNTRACKED_EXECUTOR_JOB_UID)) {
+                        jobExecutor.cancel(jobUID, executorJobUID);
+                    } else {
+                        jobExecutor.onJobTerminated(jobUID);
+                    }
+                }
+                return updated;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.EXECUTE.name());
             }
@@ -769,9 +1737,10 @@ public class JDBCBackedStorage {
     public boolean archiveJobRecord(Authentication authentication, UUID jobUID) throws IOException {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.WRITE)) {
-                PreparedStatement ps = conn.prepareStatement("UPDATE " + schema + ".AUDIT_LOG SET archived = 1 WHERE job_uid = ? AND job_status IN (3, -1)");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                return ps.executeUpdate() > 0;
+                try (PreparedStatement ps = conn.prepareStatement(sql.archiveJob)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    return ps.executeUpdate() > 0;
+                }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.WRITE.name());
             }
@@ -781,36 +1750,104 @@ public class JDBCBackedStorage {
         }
     }
 
+    /**
+     * @return The executor job IDs of all submitted jobs not yet in a terminal state, mapped to their job UIDs
+     */
+    public Map<String, UUID> getInFlightExecutorJobs() throws IOException {
+        try (Connection conn = this.datasource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.inFlightExecutorJobs)) {
+            ps.setString(1, UNTRACKED_EXECUTOR_JOB_UID);
+            Map<String, UUID> ret = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ret.put(rs.getString("executor_job_uid"), UUID.fromString(rs.getString("job_uid")));
+                }
+            }
+            return ret;
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on in-flight job retrieval", e);
+        }
+    }
+
+    /**
+     * Records terminal states reported by the job executor for multiple jobs in a single transaction. Jobs that have
+     * reached a terminal state in the meantime are left untouched.
+     *
+     * @param states The executor-reported state of each job
+     * @return The number of jobs whose status was updated
+     */
+    public int applyExecutorJobStates(Map<UUID, ExecutorJobState> states) throws IOException {
+        List<UUID> terminated = new ArrayList<>();
+        try (Connection conn = this.datasource.getConnection()) {
+            int updated;
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql.setTerminalJobStatus)) {
+                for (Map.Entry<UUID, ExecutorJobState> state : states.entrySet()) {
+                    int code;
+                    switch (state.getValue()) {
+                        case FINISHED:
+                            code = 3;
+                            break;
+                        case FAILED:
+                            code = -1;
+                            break;
+                        case CANCELED:
+                            code = -2;
+                            break;
+                        default:
+                            continue;
+                    }
+                    ps.setInt(1, code);
+                    ps.setString(2, state.getKey().toString().toUpperCase(Locale.ROOT));
+                    ps.addBatch();
+                    terminated.add(state.getKey());
+                }
+                if (terminated.isEmpty()) {
+                    conn.setAutoCommit(true);
+                    return 0;
+                }
+                updated = sumBatchCounts(ps.executeBatch());
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            terminated.forEach(jobExecutor::onJobTerminated);
+            return updated;
+        } catch (Throwable e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on job status reconciliation", e);
+        }
+    }
+
     // ===== Adjudication Related Methods =====/
     public Map<String, CohortAdjudicationStatus> getCohortAdjudicationState(Authentication auth, UUID jobUID) throws IOException {
         Map<String, CohortAdjudicationStatus> ret = new LinkedHashMap<>();
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), auth, ProjectAuthorityGrant.WRITE)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "WITH PATS AS (SELECT row_uid, person_uid, score FROM " + schema + ".COHORT WHERE job_uid = ?), " +
-                                "     COHORT_REL_GROUPED AS (SELECT cohort_row_uid, judgement, count(*) AS cnt FROM " + schema + ".COHORT_RELEVANCE GROUP BY cohort_row_uid, judgement), " +
-                                "     OVERRIDES AS (SELECT cohort_row_uid, judgment FROM " + schema + ".COHORT_RELEVANCE_ADJUDICATIONS) " +
-                                "SELECT p.person_uid, c.judgement, c.cnt, o.judgment AS override FROM PATS p " +
-                                "LEFT JOIN COHORT_REL_GROUPED c ON p.row_uid = c.cohort_row_uid " +
-                                "LEFT JOIN OVERRIDES o ON o.cohort_row_uid = p.row_uid " +
-                                "ORDER BY p.score DESC");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                while (rs.next()) {
-                    String personID = rs.getString("person_uid");
-                    ret.computeIfAbsent(personID, k -> {
-                        CohortAdjudicationStatus status = new CohortAdjudicationStatus();
-                        status.setStatus(new HashMap<>());
-                        return status;
-                    });
-                    String jdgmt = rs.getString("judgement");
-                    // If no judgements, we set adjudication to 0 after
-                    if (jdgmt != null) {
-                        ret.get(personID).getStatus().put(CandidateInclusion.valueOf(jdgmt), rs.getInt("cnt"));
-                    }
-                    String override = rs.getString("override");
-                    if (override != null) {
-                        ret.get(personID).setTiebreakerOverride(CandidateInclusion.valueOf(override));
+                if (!isAdjudicationSummaryBuilt(conn, jobUID)) {
+                    buildAdjudicationSummary(conn, jobUID);
+                }
+                // Read from the per-job summary maintained on judgement write rather than aggregating all judgements
+                try (PreparedStatement ps = conn.prepareStatement(sql.cohortAdjudicationSummary)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String personID = rs.getString("person_uid");
+                            ret.computeIfAbsent(personID, k -> {
+                                CohortAdjudicationStatus status = new CohortAdjudicationStatus();
+                                status.setStatus(new HashMap<>());
+                                return status;
+                            });
+                            String jdgmt = rs.getString("judgement");
+                            // If no judgements, we set adjudication to 0 after
+                            if (jdgmt != null) {
+                                ret.get(personID).getStatus().put(CandidateInclusion.valueOf(jdgmt), rs.getInt("cnt"));
+                            }
+                            String override = rs.getString("override");
+                            if (override != null) {
+                                ret.get(personID).setTiebreakerOverride(CandidateInclusion.valueOf(override));
+                            }
+                        }
                     }
                 }
                 ret.forEach((pat_uid, status) -> {
@@ -830,23 +1867,30 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
                 // Get the cohort row id
-                PreparedStatement ps = conn.prepareStatement("SELECT row_uid FROM " + schema + ".COHORT WHERE job_uid = ?");
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
                 int row_uid = -1;
-                if (rs.next()) {
-                    row_uid = rs.getInt(1);
-                } else {
-                    throw new RuntimeException("Person UID " + personUID + " not found in cohort for job " + jobUID);
-                }
-                ps = conn.prepareStatement("UPDATE " + schema + ".COHORT_RELEVANCE_ADJUDICATIONS SET judgement = ? WHERE cohort_row_uid = ?");
-                ps.setString(1, status.name());
-                ps.setInt(2, row_uid);
-                if (ps.executeUpdate() == 0) { // No preexisting row
-                    ps = conn.prepareStatement("INSERT INTO " + schema + ".COHORT_RELEVANCE_ADJUDICATIONS (cohort_row_uid, judgement) VALUES (?, ?)");
-                    ps.setInt(1, row_uid);
-                    ps.setString(2, status.name());
-                    ps.executeUpdate();
+                try (PreparedStatement ps = conn.prepareStatement(sql.cohortRowForPerson)) {
+                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(2, personUID);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            row_uid = rs.getInt(1);
+                        } else {
+                            throw new RuntimeException("Person UID " + personUID + " not found in cohort for job " + jobUID);
+                        }
+                    }
+                }
+                int updated;
+                try (PreparedStatement ps = conn.prepareStatement(sql.updateCohortAdjudication)) {
+                    ps.setString(1, status.name());
+                    ps.setInt(2, row_uid);
+                    updated = ps.executeUpdate();
+                }
+                if (updated == 0) { // No preexisting row
+                    try (PreparedStatement ps = conn.prepareStatement(sql.insertCohortAdjudication)) {
+                        ps.setInt(1, row_uid);
+                        ps.setString(2, status.name());
+                        ps.executeUpdate();
+                    }
                 }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
@@ -859,26 +1903,48 @@ public class JDBCBackedStorage {
     }
 
     public Map<String, PatientAdjudicationStatus> getCriteriaAdjudicationState(Authentication auth, UUID jobUID, String personUID) throws IOException {
-        Set<String> nodeUIDs = new HashSet<>();
-        Map<String, PatientAdjudicationStatus> judgements = new ConcurrentHashMap<>();
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), auth, ProjectAuthorityGrant.JUDGE)) {
-                PreparedStatement ps = conn.prepareStatement(
-                        "SELECT pc.criterion " +
-                                "FROM " + schema + ".AUDIT_LOG al " +
-                                "JOIN " + schema + ".PROJECT_CRITERION pc ON al.criterion_uid = pc.row_uid " +
-                                "WHERE al.job_uid = ?"
-                );
-                ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                ResultSet rs = ps.executeQuery();
-                Criterion def;
-                if (rs.next()) {
-                    def = om.get().readValue(rs.getString("criterion"), Criterion.class);
-                } else {
+                ParsedCriterion def = getParsedCriterionForJob(conn, jobUID);
+                if (def == null) {
                     throw new IllegalStateException("No definition stored for job");
                 }
-
-                recursSearchNodeUIDsFromDef(def, nodeUIDs);
+                Set<String> nodeUIDs = def.getNodeUIDs();
+                // Judgement counts for every node of this person in a single grouped pass
+                Map<String, Map<CriterionJudgement, Integer>> counts = new HashMap<>();
+                try (PreparedStatement countRetrieval = conn.prepareStatement(sql.nodeJudgementCounts)) {
+                    countRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    countRetrieval.setString(2, personUID);
+                    try (ResultSet rs = countRetrieval.executeQuery()) {
+                        while (rs.next()) {
+                            counts.computeIfAbsent(rs.getString("node_uid").toUpperCase(Locale.ROOT), k -> new HashMap<>())
+                                    .merge(CriterionJudgement.valueOf(rs.getString("judgement")), rs.getInt("cnt"), Integer::sum);
+                        }
+                    }
+                }
+                Map<String, CriterionJudgement> overrides = new HashMap<>();
+                try (PreparedStatement overrideRetrieval = conn.prepareStatement(sql.nodeAdjudicationOverrides)) {
+                    overrideRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                    overrideRetrieval.setString(2, personUID);
+                    try (ResultSet rs = overrideRetrieval.executeQuery()) {
+                        while (rs.next()) {
+                            overrides.putIfAbsent(rs.getString("node_uid").toUpperCase(Locale.ROOT), CriterionJudgement.valueOf(rs.getString("judgement")));
+                        }
+                    }
+                }
+                Map<String, PatientAdjudicationStatus> judgements = new HashMap<>();
+                for (String nodeUID : nodeUIDs) {
+                    Map<CriterionJudgement, Integer> nodeCounts = counts.getOrDefault(nodeUID, new HashMap<>());
+                    PatientAdjudicationStatus status = new PatientAdjudicationStatus();
+                    status.setStatus(nodeCounts);
+                    status.setNumAdjudicators(nodeCounts.values().stream().reduce(Integer::sum).orElse(0));
+                    CriterionJudgement override = overrides.get(nodeUID);
+                    if (override != null) {
+                        status.setTiebreakerOverride(override);
+                    }
+                    judgements.put(nodeUID, status);
+                }
+                return judgements;
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.READ.name());
             }
@@ -886,42 +1952,6 @@ public class JDBCBackedStorage {
             e.printStackTrace(); // TODO log exceptions to DB
             throw new IOException("Error on current criterion status retrieval", e);
         }
-        nodeUIDs.parallelStream().forEach(node_uid -> {
-            try (Connection conn = this.datasource.getConnection()){
-                PreparedStatement nodeRetrieval = conn.prepareStatement(
-                        "SELECT nr.judgement, nr.user_comment FROM " + schema + ".NODE_RELEVANCE nr WHERE nr.job_uid = ? AND nr.node_uid = ? AND person_uid = ?");
-                // Check for a node-level judgement first. If there is one, override everything
-                nodeRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                nodeRetrieval.setString(2, node_uid.toUpperCase(Locale.ROOT));
-                nodeRetrieval.setString(3, personUID);
-                ResultSet rs2 = nodeRetrieval.executeQuery();
-                Map<CriterionJudgement, Integer> counts = new HashMap<>();
-                while (rs2.next()) {
-                    String judgement = rs2.getString("judgement");
-                    counts.merge(CriterionJudgement.valueOf(judgement), 1, Integer::sum);
-                }
-                rs2.close();
-                PreparedStatement overrideRetrieval = conn.prepareStatement("SELECT judgement FROM " + schema + ".NODE_RELEVANCE_OVERRIDE WHERE job_uid = ? AND node_uid = ? AND person_uid = ?");
-                overrideRetrieval.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                overrideRetrieval.setString(2, node_uid.toUpperCase(Locale.ROOT));
-                overrideRetrieval.setString(3, personUID);
-                rs2 = overrideRetrieval.executeQuery();
-                CriterionJudgement override = rs2.next() ? CriterionJudgement.valueOf(rs2.getString("judgement")) : null;
-                rs2.close();
-                judgements.computeIfAbsent(node_uid, k -> {
-                    PatientAdjudicationStatus status = new PatientAdjudicationStatus();
-                    status.setStatus(counts);
-                    status.setNumAdjudicators(counts.values().stream().reduce(Integer::sum).orElse(0));
-                    if (override != null) {
-                        status.setTiebreakerOverride(override);
-                    }
-                    return status;
-                });
-            } catch (SQLException e) {
-                throw new RuntimeException("Error retrieving evidence judgement states", e);
-            }
-        });
-        return judgements;
     }
 
 
@@ -929,18 +1959,22 @@ public class JDBCBackedStorage {
         try (Connection conn = this.datasource.getConnection()) {
             if (checkUserAuthority(conn, getProjectUIDForJob(conn, jobUID), authentication, ProjectAuthorityGrant.JUDGE)) {
                 // Get the cohort row id
-                PreparedStatement ps = conn.prepareStatement("UPDATE " + schema + ".NODE_RELEVANCE_ADJUDICATIONS SET judgement = ? WHERE job_uid = ? AND node_uid = ? AND person_uid = ?");
-                ps.setString(1, status.name());
-                ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
-                ps.setString(4, personUID);
-                if (ps.executeUpdate() == 0) { // No preexisting row
-                    ps = conn.prepareStatement("INSERT INTO " + schema + ".NODE_RELEVANCE_ADJUDICATIONS (job_uid, node_uid, person_uid, judgement) VALUES (?, ?, ?, ?)");
-                    ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
-                    ps.setString(3, personUID);
-                    ps.setString(4, status.name());
-                    ps.executeUpdate();
+                int updated;
+                try (PreparedStatement ps = conn.prepareStatement(sql.updateNodeAdjudication)) {
+                    ps.setString(1, status.name());
+                    ps.setString(2, jobUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(3, nodeUID.toString().toUpperCase(Locale.ROOT));
+                    ps.setString(4, personUID);
+                    updated = ps.executeUpdate();
+                }
+                if (updated == 0) { // No preexisting row
+                    try (PreparedStatement ps = conn.prepareStatement(sql.insertNodeAdjudication)) {
+                        ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setString(2, nodeUID.toString().toUpperCase(Locale.ROOT));
+                        ps.setString(3, personUID);
+                        ps.setString(4, status.name());
+                        ps.executeUpdate();
+                    }
                 }
             } else {
                 throw new IllegalAccessException("User does not have the required role " + ProjectAuthorityGrant.JUDGE.name());
@@ -952,6 +1986,51 @@ public class JDBCBackedStorage {
         return getCriteriaAdjudicationState(authentication, jobUID, personUID);
     }
 
+    // ===== Text Resolution Cache Methods =====/
+    // These are not scoped to a project/user as NLP output for a given text is the same regardless of caller
+
+    public Set<String> getPersistedTextResolution(String normalizedText) throws IOException {
+        try (Connection conn = this.datasource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.textResolution)) {
+            ps.setString(1, Hashes.sha256Hex(normalizedText));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (normalizedText.equals(rs.getString("normalized_text"))) { // Guard against hash collisions
+                        return om.get().readValue(rs.getString("cuis"), new TypeReference<Set<String>>() {});
+                    }
+                }
+            }
+            return null;
+        } catch (SQLException | JsonProcessingException e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on persisted text resolution retrieve", e);
+        }
+    }
+
+    public void writePersistedTextResolution(String normalizedText, Set<String> cuis) throws IOException {
+        try (Connection conn = this.datasource.getConnection()) {
+            String textHash = Hashes.sha256Hex(normalizedText);
+            int updated;
+            try (PreparedStatement ps = conn.prepareStatement(sql.updateTextResolution)) {
+                ps.setString(1, om.get().writeValueAsString(cuis));
+                ps.setString(2, textHash);
+                ps.setString(3, normalizedText);
+                updated = ps.executeUpdate();
+            }
+            if (updated == 0) { // No preexisting row
+                try (PreparedStatement ps = conn.prepareStatement(sql.insertTextResolution)) {
+                    ps.setString(1, textHash);
+                    ps.setString(2, normalizedText);
+                    ps.setString(3, om.get().writeValueAsString(cuis));
+                    ps.executeUpdate();
+                }
+            }
+        } catch (SQLException | JsonProcessingException e) {
+            e.printStackTrace(); // TODO log exceptions to DB
+            throw new IOException("Error on persisted text resolution write", e);
+        }
+    }
+
     // ===== Utility/Service/Non-Returning Methods =====/
 
     // Instantiates the data source and tests for connection validity
@@ -962,15 +2041,138 @@ public class JDBCBackedStorage {
             this.datasource.setUser(config.getPersistence().getUser());
             this.datasource.setPassword(config.getPersistence().getPwd());
             this.datasource.setJdbcUrl(config.getPersistence().getUrl());
-            this.datasource.setMaxStatements(180);
+            ApplicationConfiguration.PoolConfig pool = config.getPersistence().getPool();
+            this.datasource.setDataSourceName("persistence");
+            this.datasource.setMinPoolSize(pool.getMinPoolSize());
+            this.datasource.setMaxPoolSize(Math.max(pool.getMinPoolSize(), pool.getMaxPoolSize()));
+            this.datasource.setInitialPoolSize(Math.max(pool.getMinPoolSize(), Math.min(pool.getInitialPoolSize(), pool.getMaxPoolSize())));
+            this.datasource.setAcquireIncrement(Math.max(1, pool.getAcquireIncrement()));
+            this.datasource.setCheckoutTimeout(pool.getCheckoutTimeoutMillis());
+            if (pool.getValidationQuery() != null && !pool.getValidationQuery().isEmpty()) {
+                this.datasource.setPreferredTestQuery(pool.getValidationQuery());
+            }
+            this.datasource.setTestConnectionOnCheckout(pool.isTestOnCheckout());
+            this.datasource.setIdleConnectionTestPeriod(pool.getIdleTestPeriodSeconds());
+            this.datasource.setMaxIdleTimeExcessConnections(pool.getMaxIdleTimeSeconds());
+            this.datasource.setMaxConnectionAge(pool.getMaxLifetimeSeconds());
+            this.datasource.setMaxStatements(pool.getMaxStatements());
+            this.datasource.setMaxStatementsPerConnection(pool.getStatementCacheSize());
+            this.datasource.setStatementCacheNumDeferredCloseThreads(pool.getStatementCacheDeferredCloseThreads());
+            this.datasource.setUnreturnedConnectionTimeout(pool.getUnreturnedConnectionTimeoutSeconds());
+            this.datasource.setDebugUnreturnedConnectionStackTraces(pool.isDebugUnreturnedConnections());
+            // Checkout durations are tracked for all connections, see getConnectionPoolStats
+            this.datasource.setConnectionCustomizerClassName(ConnectionCheckoutMonitor.class.getName());
+            Map<String, String> extensions = new HashMap<>();
+            extensions.put(ConnectionCheckoutMonitor.LONG_CHECKOUT_MILLIS, String.valueOf(pool.getLongCheckoutWarningMillis()));
+            extensions.put(ConnectionCheckoutMonitor.CAPTURE_CHECKOUT_STACK_TRACES, String.valueOf(pool.isCaptureCheckoutStackTraces()));
+            this.datasource.setExtensions(extensions);
         } catch (PropertyVetoException e) {
             throw new IllegalArgumentException("Illegal persistence config", e);
         }
         try (Connection conn = this.datasource.getConnection()) {
-            conn.prepareStatement("SELECT * FROM " + schema + ".projects").executeQuery();
+            this.dialect = SQLDialect.forConnection(conn);
+            this.streamingFetchSize = resolveStreamingFetchSize(config.getPersistence());
         } catch (SQLException e) {
             throw new IllegalArgumentException("Could not instantiate connection to persistence database", e);
         }
+        ApplicationConfiguration.SchemaMigration migrationConfig = config.getPersistence().getSchemaMigration();
+        SchemaMigrator migrator = new SchemaMigrator(this.datasource, schema, dialect, migrationConfig);
+        if (migrationConfig.isEnabled()) {
+            try {
+                migrator.migrate();
+            } catch (SQLException | IOException e) {
+                throw new IllegalArgumentException("Could not migrate persistence schema", e);
+            }
+        } else {
+            try {
+                migrator.checkPending();
+            } catch (SQLException | IOException e) {
+                // Purely advisory
+                System.out.println("Could not check for pending persistence schema migrations: " + e.getMessage());
+            }
+        }
+        try (Connection conn = this.datasource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.connectionTest);
+             ResultSet rs = ps.executeQuery()) {
+            // Connection and schema are valid if the query succeeds
+        } catch (SQLException e) {
+            throw new IllegalArgumentException("Could not instantiate connection to persistence database", e);
+        }
+        if (migrationConfig.isCheckIndexes()) {
+            try {
+                migrator.checkIndexes();
+            } catch (SQLException | IOException e) {
+                // Purely advisory
+                System.out.println("Could not verify persistence schema indexes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Usage of the persistence connection pool, including checkout durations
+     */
+    public ConnectionCheckoutStats getConnectionPoolStats() {
+        ConnectionCheckoutStats stats = ConnectionCheckoutMonitor.getStats(this.datasource.getIdentityToken());
+        try {
+            stats.setNumConnections(this.datasource.getNumConnectionsDefaultUser());
+            stats.setNumBusyConnections(this.datasource.getNumBusyConnectionsDefaultUser());
+            stats.setNumIdleConnections(this.datasource.getNumIdleConnectionsDefaultUser());
+            stats.setNumThreadsAwaitingCheckout(this.datasource.getNumThreadsAwaitingCheckoutDefaultUser());
+            stats.setNumFailedCheckouts(this.datasource.getNumFailedCheckoutsDefaultUser());
+            stats.setNumCachedStatements(this.datasource.getStatementCacheNumStatementsDefaultUser());
+        } catch (SQLException e) {
+            // Pool state unavailable, return checkout counters only
+            e.printStackTrace();
+        }
+        return stats;
+    }
+
+    // Splits values into chunks no larger than the IN list size permitted by configuration and the SQL dialect
+    private <T> List<List<T>> chunkForInClause(List<T> values) {
+        int chunkSize = Math.max(1, Math.min(config.getPersistence().getInListChunkSize(), dialect.getMaxInListSize()));
+        List<List<T>> ret = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += chunkSize) {
+            ret.add(values.subList(i, Math.min(values.size(), i + chunkSize)));
+        }
+        return ret;
+    }
+
+    // MySQL Connector/J ignores positive fetch sizes and buffers the entire result unless useCursorFetch is set on the
+    // JDBC URL. Without it, Integer.MIN_VALUE on a forward-only, read-only statement streams rows one at a time
+    private int resolveStreamingFetchSize(ApplicationConfiguration.Persistence persistence) {
+        String url = persistence.getUrl() == null ? "" : persistence.getUrl().toLowerCase(Locale.ROOT);
+        if (dialect == SQLDialect.MYSQL && !url.contains("usecursorfetch=true")) {
+            System.out.println("useCursorFetch=true is not set on the persistence URL, streaming MySQL results row by row");
+            return Integer.MIN_VALUE;
+        }
+        return persistence.getFetchSize();
+    }
+
+    // Rounds IN list sizes up to a power of two so that only a handful of distinct statements are ever prepared,
+    // allowing them to be reused from the statement cache
+    private int inClauseBucketSize(int size) {
+        int maxSize = Math.max(1, Math.min(config.getPersistence().getInListChunkSize(), dialect.getMaxInListSize()));
+        int bucket = 8;
+        while (bucket < size) {
+            bucket <<= 1;
+        }
+        return Math.min(bucket, maxSize);
+    }
+
+    private static int sumBatchCounts(int[] counts) {
+        int ret = 0;
+        for (int count : counts) {
+            // Some drivers report SUCCESS_NO_INFO rather than a row count
+            ret += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return ret;
+    }
+
+    // Binds values into an IN list of the given bucket size, padding with duplicates of the last value
+    private static void bindInClause(PreparedStatement ps, int startIdx, List<String> values, int bucketSize) throws SQLException {
+        for (int i = 0; i < bucketSize; i++) {
+            ps.setString(startIdx + i, values.get(Math.min(i, values.size() - 1)));
+        }
     }
 
     // Gets user id from authentication
@@ -983,31 +2185,51 @@ public class JDBCBackedStorage {
         if (userIdForAuth(authentication).equals(config.getBackendCallbackUsername().toUpperCase(Locale.ROOT))) {
             return true;
         }
-        PreparedStatement ps = conn.prepareStatement("SELECT grant_type FROM " + schema + ".project_role_grants WHERE project_uid = ? AND user_uid = ?");
-        ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
-        ps.setString(2, userIdForAuth(authentication));
-        ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
+        String cacheKey = grantCacheKey(projectUID, userIdForAuth(authentication));
+        List<ProjectAuthorityGrant> grants = grantCache.get(cacheKey);
+        if (grants == null) {
+            grants = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql.projectGrants)) {
+                ps.setString(1, projectUID.toString().toUpperCase(Locale.ROOT));
+                ps.setString(2, userIdForAuth(authentication));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        grants.add(ProjectAuthorityGrant.valueOf(rs.getString("grant_type")));
+                    }
+                }
+            }
+            grants = Collections.unmodifiableList(grants);
+            grantCache.put(cacheKey, grants);
+        }
+        for (ProjectAuthorityGrant grant : grants) {
             // pos/0 indicates match or greater (enum index comes at or before minGrant)
-            if (minGrant.compareTo(ProjectAuthorityGrant.valueOf(rs.getString("grant_type"))) >= 0) {
+            if (minGrant.compareTo(grant) >= 0) {
                 return true;
             }
         }
         return false;
     }
 
+    private static String grantCacheKey(UUID projectUID, String userUID) {
+        return projectUID.toString().toUpperCase(Locale.ROOT) + ":" + userUID;
+    }
+
     private UUID getProjectUIDForJob(Connection conn, UUID jobUID) throws SQLException {
-        PreparedStatement ps = conn.prepareStatement(
-                "SELECT al.project_uid " +
-                        "FROM " + schema + ".AUDIT_LOG al " +
-                        "WHERE al.job_uid = ?"
-        );
-        ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
-        ResultSet rs = ps.executeQuery();
-        if (rs.next()) {
-            return UUID.fromString(rs.getString(1));
-        } else {
-            throw new IllegalArgumentException("JOB ID " + jobUID + " caused error on project UID resolution");
+        UUID cached = jobProjectCache.get(jobUID);
+        if (cached != null) {
+            return cached;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.projectForJob)) {
+            ps.setString(1, jobUID.toString().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    UUID projectUID = UUID.fromString(rs.getString(1));
+                    jobProjectCache.put(jobUID, projectUID); // Job to project mapping is immutable
+                    return projectUID;
+                } else {
+                    throw new IllegalArgumentException("JOB ID " + jobUID + " caused error on project UID resolution");
+                }
+            }
         }
     }
 }
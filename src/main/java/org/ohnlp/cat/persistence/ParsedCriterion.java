@@ -0,0 +1,33 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.api.criteria.Criterion;
+
+import java.util.Set;
+
+/**
+ * A criterion definition parsed from a PROJECT_CRITERION row along with the (uppercase) UIDs of its entity nodes.
+ * Criterion revisions are never updated in place, so instances are cached by row and must be treated as read-only.
+ */
+public class ParsedCriterion {
+    private final long rowUID;
+    private final Criterion criterion;
+    private final Set<String> nodeUIDs;
+
+    public ParsedCriterion(long rowUID, Criterion criterion, Set<String> nodeUIDs) {
+        this.rowUID = rowUID;
+        this.criterion = criterion;
+        this.nodeUIDs = nodeUIDs;
+    }
+
+    public long getRowUID() {
+        return rowUID;
+    }
+
+    public Criterion getCriterion() {
+        return criterion;
+    }
+
+    public Set<String> getNodeUIDs() {
+        return nodeUIDs;
+    }
+}
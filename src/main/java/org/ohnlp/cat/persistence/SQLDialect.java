@@ -0,0 +1,55 @@
+package org.ohnlp.cat.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * SQL dialects of the persistence databases supported by the middleware, used where query construction or limits
+ * differ by database
+ */
+public enum SQLDialect {
+    // MySQL has no hard bind parameter limit short of max_allowed_packet, cap for reasonable statement sizes
+    MYSQL(1000, "mysql"),
+    // SQL Server permits at most 2100 parameters per statement, leave headroom for non-list parameters
+    SQLSERVER(2000, "sqlserver"),
+    // SQLite builds prior to 3.32 default SQLITE_MAX_VARIABLE_NUMBER to 999
+    SQLITE(990, "sqlite"),
+    // No schema migrations are shipped for other databases, the schema must be created manually
+    GENERIC(100, null);
+
+    private final int maxInListSize;
+    private final String migrationDirectory;
+
+    SQLDialect(int maxInListSize, String migrationDirectory) {
+        this.maxInListSize = maxInListSize;
+        this.migrationDirectory = migrationDirectory;
+    }
+
+    /**
+     * @return The maximum number of bind parameters that should be placed within a single IN list
+     */
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    /**
+     * @return The classpath directory containing schema migrations for this dialect, or null if none are available
+     */
+    public String getMigrationDirectory() {
+        return migrationDirectory == null ? null : "db/migration/" + migrationDirectory;
+    }
+
+    public static SQLDialect forConnection(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return MYSQL;
+        } else if (product.contains("sql server")) {
+            return SQLSERVER;
+        } else if (product.contains("sqlite")) {
+            return SQLITE;
+        } else {
+            return GENERIC;
+        }
+    }
+}
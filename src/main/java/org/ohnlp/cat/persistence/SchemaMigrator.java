@@ -0,0 +1,227 @@
+package org.ohnlp.cat.persistence;
+
+import org.ohnlp.cat.ApplicationConfiguration;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies or reports pending versioned schema migrations shipped for the persistence database's SQL dialect and
+ * verifies that the indexes they define are present.
+ * <br/>
+ * Migrations are read from {@code db/migration/<dialect>/V<n>.sql} on the classpath, starting from 1, with
+ * {@code ${schema}} substituted for the configured schema. The highest applied version is tracked in the
+ * SCHEMA_VERSION table. Statements are executed individually and are not transactional on all databases, so a failed
+ * migration may need to be completed manually before restarting.
+ */
+final class SchemaMigrator {
+    private static final String SCHEMA_PLACEHOLDER = "${schema}";
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(?:\\S+\\.)?(\\w+)\\s+ON\\s+(?:\\S+\\.)?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource datasource;
+    private final String schema;
+    private final SQLDialect dialect;
+    private final ApplicationConfiguration.SchemaMigration config;
+
+    SchemaMigrator(DataSource datasource, String schema, SQLDialect dialect, ApplicationConfiguration.SchemaMigration config) {
+        this.datasource = datasource;
+        this.schema = schema;
+        this.dialect = dialect;
+        this.config = config;
+    }
+
+    /**
+     * Applies all migrations newer than the current schema version
+     */
+    void migrate() throws SQLException, IOException {
+        if (dialect.getMigrationDirectory() == null) {
+            System.out.println("No schema migrations available for this database, skipping schema migration");
+            return;
+        }
+        try (Connection conn = datasource.getConnection()) {
+            int version = getCurrentVersion(conn);
+            String script;
+            while ((script = readMigration(version + 1)) != null) {
+                version++;
+                System.out.println("Applying schema migration V" + version);
+                for (String statement : splitStatements(script)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(statement);
+                    }
+                }
+                recordVersion(conn, version, describe(script));
+            }
+            System.out.println("Persistence schema is at version " + version);
+        }
+    }
+
+    /**
+     * Logs a warning for each migration newer than the current schema version, without modifying the database
+     *
+     * @return The number of pending migrations
+     */
+    int checkPending() throws SQLException, IOException {
+        if (dialect.getMigrationDirectory() == null) {
+            return 0;
+        }
+        try (Connection conn = datasource.getConnection()) {
+            int version;
+            if (tableExists(conn, "SCHEMA_VERSION")) {
+                version = readVersion(conn);
+            } else {
+                version = tableExists(conn, "projects") ? config.getBaselineVersion() : 0;
+            }
+            int pending = 0;
+            String script;
+            while ((script = readMigration(version + pending + 1)) != null) {
+                pending++;
+                String description = describe(script);
+                System.out.println("WARNING: Schema migration V" + (version + pending) + (description == null ? "" : " (" + description + ")") +
+                        " has not been applied");
+            }
+            if (pending > 0) {
+                System.out.println("WARNING: Persistence schema is behind by " + pending + " migration(s), apply them manually from " +
+                        dialect.getMigrationDirectory() + " or set cat.persistence.schema-migration.enabled to apply them on startup");
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * Logs a warning for each index defined by the migrations that does not exist in the database
+     *
+     * @return The number of missing indexes
+     */
+    int checkIndexes() throws SQLException, IOException {
+        if (dialect.getMigrationDirectory() == null) {
+            return 0;
+        }
+        Map<String, Set<String>> expected = new LinkedHashMap<>();
+        String script;
+        for (int version = 1; (script = readMigration(version)) != null; version++) {
+            Matcher m = CREATE_INDEX.matcher(script);
+            while (m.find()) {
+                expected.computeIfAbsent(m.group(2), k -> new LinkedHashSet<>()).add(m.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        int missing = 0;
+        try (Connection conn = datasource.getConnection()) {
+            DatabaseMetaData metadata = conn.getMetaData();
+            for (Map.Entry<String, Set<String>> table : expected.entrySet()) {
+                Set<String> present = getIndexNames(metadata, table.getKey());
+                for (String index : table.getValue()) {
+                    if (!present.contains(index)) {
+                        System.out.println("WARNING: Expected index " + index + " on " + schema + "." + table.getKey() +
+                                " is missing, queries against this table may be slow");
+                        missing++;
+                    }
+                }
+            }
+        }
+        return missing;
+    }
+
+    private int getCurrentVersion(Connection conn) throws SQLException, IOException {
+        if (tableExists(conn, "SCHEMA_VERSION")) {
+            return readVersion(conn);
+        }
+        for (String statement : splitStatements(readResource("schema_version.sql"))) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(statement);
+            }
+        }
+        if (tableExists(conn, "projects")) {
+            // Schema was created before migrations were tracked
+            System.out.println("Existing untracked schema found, recording as version " + config.getBaselineVersion());
+            recordVersion(conn, config.getBaselineVersion(), "Baseline of existing schema");
+            return config.getBaselineVersion();
+        }
+        return 0;
+    }
+
+    private int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM " + schema + ".SCHEMA_VERSION")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(Connection conn, int version, String description) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + schema + ".SCHEMA_VERSION (version, description, applied_dtm) VALUES (?, ?, ?)")) {
+            ps.setInt(1, version);
+            ps.setString(2, description);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+        }
+    }
+
+    private boolean tableExists(Connection conn, String table) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + schema + "." + table + " WHERE 1 = 0")) {
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Drivers differ in whether the configured schema is a catalog (MySQL) or a schema (SQL Server), so check both
+    private Set<String> getIndexNames(DatabaseMetaData metadata, String table) throws SQLException {
+        Set<String> ret = new HashSet<>();
+        String[][] scopes = {{schema, null}, {null, schema}};
+        for (String[] scope : scopes) {
+            try (ResultSet rs = metadata.getIndexInfo(scope[0], scope[1], table, false, true)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null) {
+                        ret.add(name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            } catch (SQLException e) {
+                // Scope not supported by this driver
+            }
+        }
+        return ret;
+    }
+
+    private String readMigration(int version) throws IOException {
+        return readResource("V" + version + ".sql");
+    }
+
+    private String readResource(String name) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(dialect.getMigrationDirectory() + "/" + name)) {
+            if (in == null) {
+                return null;
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<String> splitStatements(String script) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.trim().startsWith("--")) {
+                sb.append(line).append('\n');
+            }
+        }
+        List<String> ret = new ArrayList<>();
+        for (String statement : sb.toString().split(";")) {
+            if (!statement.isBlank()) {
+                ret.add(statement.trim().replace(SCHEMA_PLACEHOLDER, schema));
+            }
+        }
+        return ret;
+    }
+
+    // Migrations describe themselves with a leading comment
+    private static String describe(String script) {
+        String firstLine = script.split("\\R", 2)[0].trim();
+        return firstLine.startsWith("--") ? firstLine.substring(2).trim() : null;
+    }
+}
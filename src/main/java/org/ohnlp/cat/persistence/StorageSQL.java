@@ -0,0 +1,363 @@
+package org.ohnlp.cat.persistence;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of all SQL issued by {@link JDBCBackedStorage}, with the configured schema substituted once at startup.
+ * <br/>
+ * Every request issues byte-identical SQL for a given statement so that prepared statements are reused from the
+ * connection pool's statement cache. Statements containing IN lists are expanded per bucket size on first use, see
+ * {@link InListTemplate}.
+ */
+final class StorageSQL {
+    private static final String SCHEMA_PLACEHOLDER = "${schema}";
+    private static final String IN_LIST_PLACEHOLDER = "${inList}";
+
+    private final String schema;
+
+    // ===== Projects ===== //
+    final String projectList;
+    final String insertProject;
+    final String insertProjectOwnerGrant;
+    final String renameProject;
+    final String updateRoleGrant;
+    final String insertRoleGrant;
+    final String insertProjectArchive;
+    final String insertProjectCriterion;
+    final String latestProjectCriterion;
+    final String projectCriterion;
+    final String projectDataSources;
+    final String updateProjectDataSources;
+    final String insertProjectDataSources;
+
+    // ===== Cohorts ===== //
+    final String cohortForJudger;
+    final String cohortOrderedForJudger;
+    final String cohortOrderedForJudgerAfter;
+    final String unscoredCohortForJudgerAfter;
+    final InListTemplate cohortRelevanceForPatients;
+    final String cohortRelevanceForPatient;
+    private final Map<SQLDialect, InListTemplate> lockCohortRowsForPatients = new EnumMap<>(SQLDialect.class);
+    private final Map<SQLDialect, InListTemplate> lockCohortJudgementsForPatients = new EnumMap<>(SQLDialect.class);
+    final String updateCohortRelevance;
+    final String insertCohortRelevance;
+    final String cohortSize;
+
+    // ===== Criterion Judgements ===== //
+    final String nodeRelevanceForPerson;
+    final String evidenceJudgementsForPerson;
+    final String updateNodeRelevance;
+    final String insertNodeRelevance;
+    final InListTemplate nodeRelevanceKeysForPersons;
+
+    // ===== Evidence ===== //
+    final InListTemplate evidenceRelevanceForEvidence;
+    final String evidenceRelevanceForSingleEvidence;
+    final String evidenceJudgementRowForEvidence;
+    final InListTemplate evidenceJudgementRowsForEvidence;
+    final String updateEvidenceRelevance;
+    final String insertEvidenceRelevance;
+    final String evidenceForNode;
+    final String copyEvidence;
+
+    // ===== Jobs ===== //
+    final String jobsForUser;
+    final String jobsForProject;
+    final String insertJob;
+    final String jobCriterion;
+    final String projectForJob;
+    final String queuedJobs;
+    final String awaitingDispatchJobStatus;
+    final String jobStatus;
+    final String setExecutorJobUID;
+    final String failQueuedJob;
+    final String setJobStatus;
+    final String setTerminalJobStatus;
+    final String cancelJob;
+    final String archiveJob;
+    final String executorJobUID;
+    final String inFlightExecutorJobs;
+    final String latestCompletedJob;
+
+    // ===== Subtree Reuse ===== //
+    final InListTemplate reusableNodeFingerprints;
+    final String insertNodeFingerprint;
+    final String reusedNodes;
+    final String clearReusedNodes;
+    final String deleteNodeEvidence;
+
+    // ===== Adjudication ===== //
+    final String adjudicationSummaryState;
+    final String insertAdjudicationSummaryState;
+    private final Map<SQLDialect, String> lockAdjudicationSummaryState = new EnumMap<>(SQLDialect.class);
+    final String updateAdjudicationSummary;
+    final String insertAdjudicationSummary;
+    private final Map<SQLDialect, String> upsertAdjudicationSummary = new EnumMap<>(SQLDialect.class);
+    final String deleteAdjudicationSummary;
+    final String buildAdjudicationSummary;
+    final String cohortAdjudicationSummary;
+    final String cohortRowForPerson;
+    final String updateCohortAdjudication;
+    final String insertCohortAdjudication;
+    final String nodeJudgementCounts;
+    final String nodeAdjudicationOverrides;
+    final String updateNodeAdjudication;
+    final String insertNodeAdjudication;
+
+    // ===== Text Resolution Cache ===== //
+    final String textResolution;
+    final String updateTextResolution;
+    final String insertTextResolution;
+
+    // ===== Authorization/Utility ===== //
+    final String projectGrants;
+    final String connectionTest;
+
+    StorageSQL(String schema) {
+        this.schema = schema;
+
+        projectList = sql("SELECT p.project_uid, p.project_name, p.project_desc FROM ${schema}.projects p " +
+                "JOIN ${schema}.project_role_grants prg ON p.project_uid = prg.project_uid " +
+                "LEFT JOIN ${schema}.project_archive pa ON p.project_uid = pa.project_uid " +
+                "WHERE prg.user_uid = ? AND pa.row_uid IS NULL");
+        insertProject = sql("INSERT INTO ${schema}.projects (project_uid, project_name) VALUES (?, ?)");
+        insertProjectOwnerGrant = sql("INSERT INTO ${schema}.project_role_grants (project_uid, user_uid, grant_type) VALUES (?, ?, ?)");
+        renameProject = sql("UPDATE ${schema}.projects SET project_name = ? where project_uid = ?");
+        updateRoleGrant = sql("UPDATE ${schema}.PROJECT_ROLE_GRANTS SET grant_type = ? WHERE project_uid = ? AND user_uid = ?");
+        insertRoleGrant = sql("INSERT INTO ${schema}.PROJECT_ROLE_GRANTS (project_uid, user_uid, grant_type) VALUES (?, ?, ?)");
+        insertProjectArchive = sql("INSERT INTO ${schema}.PROJECT_ARCHIVE (project_uid) VALUES (?)");
+        insertProjectCriterion = sql("INSERT INTO ${schema}.project_criterion (project_uid, criterion, revision_date) VALUES (?, ?, ?)");
+        latestProjectCriterion = sql("SELECT row_uid FROM ${schema}.PROJECT_CRITERION p WHERE project_uid = ? ORDER BY revision_date DESC");
+        projectCriterion = sql("SELECT criterion FROM ${schema}.PROJECT_CRITERION WHERE row_uid = ?");
+        projectDataSources = sql("SELECT data_sources FROM ${schema}.project_data_sources WHERE project_uid = ?");
+        updateProjectDataSources = sql("UPDATE ${schema}.project_data_sources SET data_sources = ? WHERE project_uid = ?");
+        insertProjectDataSources = sql("INSERT INTO ${schema}.project_data_sources (project_uid, data_sources) VALUES (?, ?)");
+
+        cohortForJudger = sql("SELECT c.person_uid, c.score, j.judgement " +
+                "FROM (SELECT * FROM ${schema}.COHORT WHERE job_uid = ?) c LEFT JOIN (SELECT * FROM ${schema}.COHORT_RELEVANCE WHERE judger_uid = ?) j" +
+                "     ON c.row_uid = j.cohort_row_uid ORDER BY c.score DESC");
+        // Candidates without a score are retrieved separately, in row order, after all scored candidates: the ordering
+        // of NULLs differs across databases and NULL never satisfies the keyset comparison
+        cohortOrderedForJudger = sql("SELECT c.row_uid, c.person_uid, c.score, j.judgement " +
+                "FROM ${schema}.COHORT c LEFT JOIN ${schema}.COHORT_RELEVANCE j " +
+                "     ON c.row_uid = j.cohort_row_uid AND j.judger_uid = ? " +
+                "WHERE c.job_uid = ? AND c.score IS NOT NULL " +
+                "ORDER BY c.score DESC, c.row_uid ASC");
+        cohortOrderedForJudgerAfter = sql("SELECT c.row_uid, c.person_uid, c.score, j.judgement " +
+                "FROM ${schema}.COHORT c LEFT JOIN ${schema}.COHORT_RELEVANCE j " +
+                "     ON c.row_uid = j.cohort_row_uid AND j.judger_uid = ? " +
+                "WHERE c.job_uid = ? AND c.score IS NOT NULL AND (c.score < ? OR (c.score = ? AND c.row_uid > ?)) " +
+                "ORDER BY c.score DESC, c.row_uid ASC");
+        unscoredCohortForJudgerAfter = sql("SELECT c.row_uid, c.person_uid, c.score, j.judgement " +
+                "FROM ${schema}.COHORT c LEFT JOIN ${schema}.COHORT_RELEVANCE j " +
+                "     ON c.row_uid = j.cohort_row_uid AND j.judger_uid = ? " +
+                "WHERE c.job_uid = ? AND c.score IS NULL AND c.row_uid > ? " +
+                "ORDER BY c.row_uid ASC");
+        cohortRelevanceForPatients = inList("SELECT c.person_uid, cr.judgement " +
+                "FROM ${schema}.COHORT c " +
+                "JOIN ${schema}.COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
+                "WHERE c.job_uid = ? AND cr.judger_uid = ? AND c.person_uid IN (${inList})");
+        cohortRelevanceForPatient = sql("SELECT judgement " +
+                "FROM ${schema}.COHORT c " +
+                "JOIN ${schema}.COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
+                "WHERE c.job_uid = ? AND c.person_uid = ? AND cr.judger_uid = ?");
+        // Exclusive locks on the cohort rows being judged and on the judger's existing judgements of them, held until
+        // commit, so that concurrent judgement writes for the same patient are serialized and each derives its summary
+        // delta from the judgement it actually replaces. The judgements are locked via an inner join as some databases
+        // do not permit locking the nullable side of an outer join. SQLite serializes write transactions on its own
+        for (SQLDialect dialect : SQLDialect.values()) {
+            lockCohortRowsForPatients.put(dialect, inList("SELECT row_uid, person_uid FROM ${schema}.COHORT " +
+                    "WHERE job_uid = ? AND person_uid IN (${inList}) FOR UPDATE"));
+            lockCohortJudgementsForPatients.put(dialect, inList("SELECT c.person_uid, cr.cohort_row_uid, cr.row_uid AS JUDGEMENT_ROW, cr.judgement FROM ${schema}.COHORT c " +
+                    "JOIN ${schema}.COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
+                    "WHERE c.job_uid = ? AND cr.judger_uid = ? AND c.person_uid IN (${inList}) FOR UPDATE"));
+        }
+        lockCohortRowsForPatients.put(SQLDialect.SQLSERVER, inList("SELECT row_uid, person_uid FROM ${schema}.COHORT WITH (UPDLOCK, HOLDLOCK) " +
+                "WHERE job_uid = ? AND person_uid IN (${inList})"));
+        lockCohortJudgementsForPatients.put(SQLDialect.SQLSERVER, inList("SELECT c.person_uid, cr.cohort_row_uid, cr.row_uid AS JUDGEMENT_ROW, cr.judgement FROM ${schema}.COHORT c " +
+                "JOIN ${schema}.COHORT_RELEVANCE cr WITH (UPDLOCK, HOLDLOCK) ON c.row_uid = cr.cohort_row_uid " +
+                "WHERE c.job_uid = ? AND cr.judger_uid = ? AND c.person_uid IN (${inList})"));
+        lockCohortRowsForPatients.put(SQLDialect.SQLITE, inList("SELECT row_uid, person_uid FROM ${schema}.COHORT " +
+                "WHERE job_uid = ? AND person_uid IN (${inList})"));
+        lockCohortJudgementsForPatients.put(SQLDialect.SQLITE, inList("SELECT c.person_uid, cr.cohort_row_uid, cr.row_uid AS JUDGEMENT_ROW, cr.judgement FROM ${schema}.COHORT c " +
+                "JOIN ${schema}.COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
+                "WHERE c.job_uid = ? AND cr.judger_uid = ? AND c.person_uid IN (${inList})"));
+        updateCohortRelevance = sql("UPDATE ${schema}.COHORT_RELEVANCE SET judgement = ? WHERE row_uid = ?");
+        insertCohortRelevance = sql("INSERT INTO ${schema}.COHORT_RELEVANCE (cohort_row_uid, judger_uid, judgement) VALUES (?, ?, ?)");
+        cohortSize = sql("SELECT COUNT(*) FROM ${schema}.COHORT WHERE job_uid = ?");
+
+        nodeRelevanceForPerson = sql("SELECT nr.node_uid, nr.judgement, nr.user_comment FROM ${schema}.NODE_RELEVANCE nr " +
+                "WHERE nr.job_uid = ? AND nr.person_uid = ? AND nr.judger_uid = ?");
+        evidenceJudgementsForPerson = sql("SELECT DISTINCT e.node_uid, e.evidence_uid, er.judgement FROM ${schema}.EVIDENCE e " +
+                "LEFT JOIN ${schema}.EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid AND er.judger_uid = ? " +
+                "WHERE e.job_uid = ? AND e.person_uid = ?");
+        updateNodeRelevance = sql("UPDATE ${schema}.NODE_RELEVANCE SET judgement = ?, user_comment = ? " +
+                "WHERE job_uid = ? AND node_uid = ? AND person_uid = ? AND judger_uid = ?");
+        insertNodeRelevance = sql("INSERT INTO ${schema}.NODE_RELEVANCE (job_uid, node_uid, person_uid, judger_uid, judgement, user_comment) VALUES (?, ?, ?, ?, ?, ?)");
+        nodeRelevanceKeysForPersons = inList("SELECT node_uid, person_uid FROM ${schema}.NODE_RELEVANCE " +
+                "WHERE job_uid = ? AND judger_uid = ? AND person_uid IN (${inList})");
+
+        evidenceRelevanceForEvidence = inList("SELECT e.evidence_uid, er.judgement " +
+                "FROM ${schema}.EVIDENCE e " +
+                "JOIN ${schema}.EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid " +
+                "WHERE e.job_uid = ? AND e.node_uid = ? AND er.judger_uid = ? AND e.evidence_uid IN (${inList})");
+        evidenceRelevanceForSingleEvidence = sql("SELECT er.judgement " +
+                "FROM ${schema}.EVIDENCE e " +
+                "JOIN ${schema}.EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid " +
+                "WHERE e.job_uid = ? AND e.evidence_uid = ? AND e.node_uid = ? AND er.judger_uid = ?");
+        evidenceJudgementRowForEvidence = sql("SELECT e.row_uid, er.row_uid AS JUDGEMENT_ROW, er.judgement FROM ${schema}.EVIDENCE e " +
+                "LEFT JOIN ${schema}.EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid AND er.judger_uid = ? " +
+                "WHERE e.job_uid = ? AND e.node_uid = ? AND e.evidence_uid = ?");
+        evidenceJudgementRowsForEvidence = inList("SELECT e.node_uid, e.evidence_uid, e.row_uid, er.row_uid AS JUDGEMENT_ROW FROM ${schema}.EVIDENCE e " +
+                "LEFT JOIN ${schema}.EVIDENCE_RELEVANCE er ON e.row_uid = er.evidence_row_uid AND er.judger_uid = ? " +
+                "WHERE e.job_uid = ? AND e.evidence_uid IN (${inList})");
+        updateEvidenceRelevance = sql("UPDATE ${schema}.EVIDENCE_RELEVANCE SET judgement = ? WHERE row_uid = ?");
+        insertEvidenceRelevance = sql("INSERT INTO ${schema}.EVIDENCE_RELEVANCE (evidence_row_uid, judger_uid, judgement) VALUES (?, ?, ?)");
+        evidenceForNode = sql("SELECT evidence_uid, score FROM ${schema}.EVIDENCE WHERE job_uid = ? AND node_uid = ? AND person_uid = ? ORDER BY score DESC");
+        // Copied within the database so that evidence never passes through the middleware
+        copyEvidence = sql("INSERT INTO ${schema}.EVIDENCE (job_uid, node_uid, person_uid, evidence_uid, score) " +
+                "SELECT ?, ?, person_uid, evidence_uid, score FROM ${schema}.EVIDENCE WHERE job_uid = ? AND node_uid = ?");
+
+        jobsForUser = sql("SELECT job_uid, project_uid, start_dtm, user_uid, job_status " +
+                "FROM ${schema}.AUDIT_LOG WHERE user_uid = ? AND archived != 1 ORDER BY start_dtm DESC");
+        jobsForProject = sql("SELECT job_uid, start_dtm, user_uid, job_status FROM ${schema}.AUDIT_LOG " +
+                "WHERE project_uid = ? AND archived != 1 ORDER BY start_dtm DESC");
+        insertJob = sql("INSERT INTO ${schema}.AUDIT_LOG (project_uid, job_uid, criterion_uid, user_uid, start_dtm, job_status) VALUES (?, ?, ?, ?, ?, ?)");
+        jobCriterion = sql("SELECT criterion_uid FROM ${schema}.AUDIT_LOG WHERE job_uid = ?");
+        projectForJob = sql("SELECT al.project_uid FROM ${schema}.AUDIT_LOG al WHERE al.job_uid = ?");
+        queuedJobs = sql("SELECT job_uid, project_uid, user_uid, criterion_uid FROM ${schema}.AUDIT_LOG " +
+                "WHERE job_status = ? AND executor_job_uid IS NULL ORDER BY start_dtm");
+        awaitingDispatchJobStatus = sql("SELECT job_status FROM ${schema}.AUDIT_LOG WHERE job_uid = ? AND executor_job_uid IS NULL");
+        jobStatus = sql("SELECT job_status FROM ${schema}.AUDIT_LOG WHERE job_uid = ?");
+        setExecutorJobUID = sql("UPDATE ${schema}.AUDIT_LOG SET executor_job_uid = ? where job_uid = ?");
+        failQueuedJob = sql("UPDATE ${schema}.AUDIT_LOG SET job_status = -1 WHERE job_uid = ? AND job_status = ?");
+        setJobStatus = sql("UPDATE ${schema}.AUDIT_LOG SET job_status = ? WHERE job_uid = ?");
+        setTerminalJobStatus = sql("UPDATE ${schema}.AUDIT_LOG SET job_status = ? WHERE job_uid = ? AND job_status NOT IN (3, -1, -2)");
+        cancelJob = sql("UPDATE ${schema}.AUDIT_LOG SET job_status = -2 WHERE job_uid = ? AND job_status NOT IN (3, -1)");
+        archiveJob = sql("UPDATE ${schema}.AUDIT_LOG SET archived = 1 WHERE job_uid = ? AND job_status IN (3, -1)");
+        executorJobUID = sql("SELECT executor_job_uid FROM ${schema}.AUDIT_LOG WHERE job_uid = ?");
+        inFlightExecutorJobs = sql("SELECT job_uid, executor_job_uid FROM ${schema}.AUDIT_LOG " +
+                "WHERE job_status NOT IN (3, -1, -2) AND executor_job_uid IS NOT NULL AND executor_job_uid <> ?");
+        latestCompletedJob = sql("SELECT job_uid FROM ${schema}.AUDIT_LOG WHERE project_uid = ? AND job_status = 3 ORDER BY start_dtm DESC");
+
+        reusableNodeFingerprints = inList("SELECT nf.fingerprint, nf.job_uid, nf.node_uid FROM ${schema}.NODE_FINGERPRINT nf " +
+                "JOIN ${schema}.AUDIT_LOG a ON nf.job_uid = a.job_uid " +
+                "WHERE a.project_uid = ? AND a.job_status = 3 AND a.start_dtm >= ? " +
+                "AND nf.fingerprint IN (${inList}) ORDER BY a.start_dtm DESC");
+        insertNodeFingerprint = sql("INSERT INTO ${schema}.NODE_FINGERPRINT (job_uid, node_uid, fingerprint, reused_job_uid, reused_node_uid) VALUES (?, ?, ?, ?, ?)");
+        reusedNodes = sql("SELECT node_uid, reused_job_uid, reused_node_uid FROM ${schema}.NODE_FINGERPRINT WHERE job_uid = ? AND reused_job_uid IS NOT NULL");
+        clearReusedNodes = sql("UPDATE ${schema}.NODE_FINGERPRINT SET reused_job_uid = NULL, reused_node_uid = NULL WHERE job_uid = ?");
+        deleteNodeEvidence = sql("DELETE FROM ${schema}.EVIDENCE WHERE job_uid = ? AND node_uid = ?");
+
+        adjudicationSummaryState = sql("SELECT job_uid FROM ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE WHERE job_uid = ?");
+        // Shared lock on the state row, or on its absence, held until commit. Judgement writers take it before writing
+        // so that a concurrent summary build, which inserts the state row first, is serialized against them. SQLite
+        // serializes write transactions on its own
+        lockAdjudicationSummaryState.put(SQLDialect.MYSQL, sql("SELECT job_uid FROM ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE WHERE job_uid = ? LOCK IN SHARE MODE"));
+        lockAdjudicationSummaryState.put(SQLDialect.SQLSERVER, sql("SELECT job_uid FROM ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE WITH (HOLDLOCK) WHERE job_uid = ?"));
+        insertAdjudicationSummaryState = sql("INSERT INTO ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE (job_uid) VALUES (?)");
+        updateAdjudicationSummary = sql("UPDATE ${schema}.COHORT_ADJUDICATION_SUMMARY SET judgement_count = judgement_count + ? WHERE cohort_row_uid = ? AND judgement = ?");
+        insertAdjudicationSummary = sql("INSERT INTO ${schema}.COHORT_ADJUDICATION_SUMMARY (job_uid, cohort_row_uid, judgement, judgement_count) VALUES (?, ?, ?, ?)");
+        // Increments the count of an existing summary row or creates it, atomically so that concurrent first
+        // judgements for the same cohort row and inclusion neither collide nor double count. Relies on the unique
+        // (cohort_row_uid, judgement) index added in schema V3
+        upsertAdjudicationSummary.put(SQLDialect.MYSQL, sql("INSERT INTO ${schema}.COHORT_ADJUDICATION_SUMMARY (job_uid, cohort_row_uid, judgement, judgement_count) VALUES (?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE judgement_count = judgement_count + VALUES(judgement_count)"));
+        upsertAdjudicationSummary.put(SQLDialect.SQLSERVER, sql("MERGE ${schema}.COHORT_ADJUDICATION_SUMMARY WITH (HOLDLOCK) AS t " +
+                "USING (SELECT ? AS job_uid, ? AS cohort_row_uid, ? AS judgement, ? AS judgement_count) AS s " +
+                "ON t.cohort_row_uid = s.cohort_row_uid AND t.judgement = s.judgement " +
+                "WHEN MATCHED THEN UPDATE SET judgement_count = t.judgement_count + s.judgement_count " +
+                "WHEN NOT MATCHED THEN INSERT (job_uid, cohort_row_uid, judgement, judgement_count) VALUES (s.job_uid, s.cohort_row_uid, s.judgement, s.judgement_count);"));
+        upsertAdjudicationSummary.put(SQLDialect.SQLITE, sql("INSERT INTO ${schema}.COHORT_ADJUDICATION_SUMMARY (job_uid, cohort_row_uid, judgement, judgement_count) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT (cohort_row_uid, judgement) DO UPDATE SET judgement_count = judgement_count + excluded.judgement_count"));
+        deleteAdjudicationSummary = sql("DELETE FROM ${schema}.COHORT_ADJUDICATION_SUMMARY WHERE job_uid = ?");
+        buildAdjudicationSummary = sql("INSERT INTO ${schema}.COHORT_ADJUDICATION_SUMMARY (job_uid, cohort_row_uid, judgement, judgement_count) " +
+                "SELECT c.job_uid, cr.cohort_row_uid, cr.judgement, COUNT(*) FROM ${schema}.COHORT c " +
+                "JOIN ${schema}.COHORT_RELEVANCE cr ON c.row_uid = cr.cohort_row_uid " +
+                "WHERE c.job_uid = ? AND cr.judgement IS NOT NULL " +
+                "GROUP BY c.job_uid, cr.cohort_row_uid, cr.judgement");
+        cohortAdjudicationSummary = sql("SELECT c.person_uid, s.judgement, s.judgement_count AS cnt, o.judgement AS override FROM ${schema}.COHORT c " +
+                "LEFT JOIN ${schema}.COHORT_ADJUDICATION_SUMMARY s ON s.cohort_row_uid = c.row_uid AND s.judgement_count > 0 " +
+                "LEFT JOIN ${schema}.COHORT_RELEVANCE_ADJUDICATIONS o ON o.cohort_row_uid = c.row_uid " +
+                "WHERE c.job_uid = ? " +
+                "ORDER BY c.score DESC");
+        cohortRowForPerson = sql("SELECT row_uid FROM ${schema}.COHORT WHERE job_uid = ? AND person_uid = ?");
+        updateCohortAdjudication = sql("UPDATE ${schema}.COHORT_RELEVANCE_ADJUDICATIONS SET judgement = ? WHERE cohort_row_uid = ?");
+        insertCohortAdjudication = sql("INSERT INTO ${schema}.COHORT_RELEVANCE_ADJUDICATIONS (cohort_row_uid, judgement) VALUES (?, ?)");
+        nodeJudgementCounts = sql("SELECT nr.node_uid, nr.judgement, COUNT(*) AS cnt FROM ${schema}.NODE_RELEVANCE nr " +
+                "WHERE nr.job_uid = ? AND nr.person_uid = ? AND nr.judgement IS NOT NULL " +
+                "GROUP BY nr.node_uid, nr.judgement");
+        nodeAdjudicationOverrides = sql("SELECT node_uid, judgement FROM ${schema}.NODE_RELEVANCE_ADJUDICATIONS WHERE job_uid = ? AND person_uid = ?");
+        updateNodeAdjudication = sql("UPDATE ${schema}.NODE_RELEVANCE_ADJUDICATIONS SET judgement = ? WHERE job_uid = ? AND node_uid = ? AND person_uid = ?");
+        insertNodeAdjudication = sql("INSERT INTO ${schema}.NODE_RELEVANCE_ADJUDICATIONS (job_uid, node_uid, person_uid, judgement) VALUES (?, ?, ?, ?)");
+
+        textResolution = sql("SELECT normalized_text, cuis FROM ${schema}.TEXT_RESOLUTION_CACHE WHERE text_hash = ?");
+        updateTextResolution = sql("UPDATE ${schema}.TEXT_RESOLUTION_CACHE SET cuis = ? WHERE text_hash = ? AND normalized_text = ?");
+        insertTextResolution = sql("INSERT INTO ${schema}.TEXT_RESOLUTION_CACHE (text_hash, normalized_text, cuis) VALUES (?, ?, ?)");
+
+        projectGrants = sql("SELECT grant_type FROM ${schema}.project_role_grants WHERE project_uid = ? AND user_uid = ?");
+        connectionTest = sql("SELECT * FROM ${schema}.projects");
+    }
+
+    /**
+     * @return An atomic upsert adding a count to a summary row, bound as (job_uid, cohort_row_uid, judgement, count),
+     * or null if the dialect has no supported upsert syntax
+     */
+    String upsertAdjudicationSummary(SQLDialect dialect) {
+        return upsertAdjudicationSummary.get(dialect);
+    }
+
+    /**
+     * @return An exclusively locking read of the cohort rows of a job's patients, bound as (job_uid, person_uid...)
+     */
+    InListTemplate lockCohortRowsForPatients(SQLDialect dialect) {
+        return lockCohortRowsForPatients.get(dialect);
+    }
+
+    /**
+     * @return An exclusively locking read of a judger's judgements of a job's patients, bound as
+     * (job_uid, judger_uid, person_uid...)
+     */
+    InListTemplate lockCohortJudgementsForPatients(SQLDialect dialect) {
+        return lockCohortJudgementsForPatients.get(dialect);
+    }
+
+    /**
+     * @return A locking read of a job's adjudication summary state row, bound as (job_uid)
+     */
+    String lockAdjudicationSummaryState(SQLDialect dialect) {
+        return lockAdjudicationSummaryState.getOrDefault(dialect, adjudicationSummaryState);
+    }
+
+    private String sql(String template) {
+        return template.replace(SCHEMA_PLACEHOLDER, schema);
+    }
+
+    private InListTemplate inList(String template) {
+        return new InListTemplate(sql(template));
+    }
+
+    /**
+     * A statement containing a single IN list, expanded to a given number of bind parameters. IN list sizes are
+     * bucketed by the caller, so only a handful of expansions are ever built and each is cached for reuse.
+     */
+    static final class InListTemplate {
+        private final String template;
+        private final Map<Integer, String> expansions = new ConcurrentHashMap<>();
+
+        private InListTemplate(String template) {
+            this.template = template;
+        }
+
+        /**
+         * @return The statement with an IN list of the given number of bind parameters
+         */
+        String forSize(int size) {
+            return expansions.computeIfAbsent(size,
+                    k -> template.replace(IN_LIST_PLACEHOLDER, String.join(", ", Collections.nCopies(k, "?"))));
+        }
+    }
+}
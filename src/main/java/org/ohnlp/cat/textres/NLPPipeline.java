@@ -12,36 +12,56 @@ import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.ResourceManager;
-import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.CasPool;
 import org.apache.uima.util.InvalidXMLException;
 import org.ohnlp.cat.ApplicationConfiguration;
-import org.ohnlp.medtagger.backbone.MedTaggerBackboneTransform;
 import org.ohnlp.medtagger.context.RuleContextAnnotator;
 import org.ohnlp.medtagger.type.ConceptMention;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystemAlreadyExistsException;
-import java.nio.file.FileSystems;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
 
+/**
+ * A pooled, thread-safe MedTagger pipeline. A fixed number of analysis engine instances and CAS objects are shared
+ * across all callers; requests beyond the pool size wait in a bounded queue and are rejected once that queue is full.
+ * A single shared watchdog aborts any request that exceeds the configured timeout.
+ */
 public class NLPPipeline {
-    private static final ReentrantLock INIT_MUTEX_LOCK = new ReentrantLock(); // Lock to ensure init once per thread
+    private static final ReentrantLock INIT_MUTEX_LOCK = new ReentrantLock(); // Lock to ensure pipeline init happens one at a time
 
-    private final ApplicationConfiguration config;
+    private final ApplicationConfiguration.TextResolution config;
     private ResourceManager resMgr;
     private AnalysisEngine aae;
-    private CAS cas;
+    private CasPool casPool;
+    private final ThreadPoolExecutor nlpExecutor;
+    private final ScheduledExecutorService watchdog;
 
     public NLPPipeline(ApplicationConfiguration config) {
-        this.config = config;
+        this.config = config.getTextResolution();
         init();
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.nlpExecutor = new ThreadPoolExecutor(
+                this.config.getPipelinePoolSize(), this.config.getPipelinePoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, this.config.getQueueDepth())),
+                r -> {
+                    Thread t = new Thread(r, "nlp-pipeline-" + threadIdx.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nlp-pipeline-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     private void init() {
@@ -56,9 +76,12 @@ public class NLPPipeline {
             // Add Context handling
             ae.add(AnalysisEngineFactory.createEngineDescription(RuleContextAnnotator.class));
             this.resMgr = ResourceManagerFactory.newResourceManager();
-            this.aae = UIMAFramework.produceAnalysisEngine(ae.createAggregateDescription(), resMgr, null);
-            this.cas = CasCreationUtils.createCas(Collections.singletonList(aae.getMetaData()),
-                    null, resMgr);
+            // Have UIMA maintain a pool of analysis engine instances so that multiple CASes can be processed concurrently
+            Map<String, Object> aeParams = new HashMap<>();
+            aeParams.put(AnalysisEngine.PARAM_NUM_SIMULTANEOUS_REQUESTS, config.getPipelinePoolSize());
+            aeParams.put(AnalysisEngine.PARAM_TIMEOUT_PERIOD, (int) Math.min(Integer.MAX_VALUE, config.getTimeoutMillis()));
+            this.aae = UIMAFramework.produceAnalysisEngine(ae.createAggregateDescription(), resMgr, aeParams);
+            this.casPool = new CasPool(config.getPipelinePoolSize(), aae);
         } catch (ResourceInitializationException | InvalidXMLException | IOException | URISyntaxException e) {
             throw new RuntimeException("Failed to init text/NLP parser");
         } finally {
@@ -66,60 +89,98 @@ public class NLPPipeline {
         }
     }
 
+    /**
+     * Runs NLP over the supplied text, blocking until results are available or the configured timeout elapses
+     *
+     * @param text The text to process
+     * @return The set of UMLS CUIs found in the text
+     * @throws RejectedExecutionException If the pipeline pool and its wait queue are both full
+     */
     public Set<String> process(String text) {
+        return await(submit(text), text);
+    }
+
+    /**
+     * Queues the supplied text for NLP without waiting for the result. The returned future is cancelled by the
+     * watchdog if it does not complete within the configured timeout.
+     *
+     * @param text The text to process
+     * @return A future holding the set of UMLS CUIs found in the text
+     * @throws RejectedExecutionException If the pipeline pool and its wait queue are both full
+     */
+    public Future<Set<String>> submit(String text) {
+        TimedTask task = new TimedTask(text);
+        nlpExecutor.execute(task);
+        // Cancel (and interrupt) the run if it has not completed within the timeout
+        task.timeout = watchdog.schedule(() -> task.cancel(true), config.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        return task;
+    }
+
+    /**
+     * Waits on a future returned by {@link #submit(String)}
+     *
+     * @param future The future to wait on
+     * @param text   The text associated with the future, used for logging purposes. The text itself is never logged as
+     *               it may contain patient information
+     * @return The set of UMLS CUIs found in the text
+     */
+    public Set<String> await(Future<Set<String>> future, String text) {
         try {
-            cas.reset();
-        } catch (Throwable t) {
-            // CAS reset failed, just create a whole new one
-            try {
-                this.cas = CasCreationUtils.createCas(Collections.singletonList(aae.getMetaData()),
-                        null, resMgr);
-            } catch (ResourceInitializationException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        cas.setDocumentText(text);
-        final CAS casRef = cas; // a final reference for cross-ref access
-        System.out.println("Running NLP on " + text);
-        // Run NLP in a separate thread so that we can interrupt it if it takes too long
-        // We create a new executor service instead of sharing it in case interrupt fails
-        ExecutorService nlpExecutor = Executors.newSingleThreadExecutor();
-        FutureTask<Throwable> future = new FutureTask<>(() -> {
-            try {
-                aae.process(casRef);
-                return null;
-            } catch (AnalysisEngineProcessException e) {
-                return e;
-            }
-        });
-        nlpExecutor.submit(future);
-        try {
-            Throwable t = future.get(30000, TimeUnit.MILLISECONDS);
-            if (t != null) {
-                throw new RuntimeException(t);
-            }
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            System.out.println("Skipping text " + text + " due to NLP run taking longer than 30 seconds");
+            return future.get();
+        } catch (CancellationException e) {
+            System.out.println("Skipping text of length " + text.length() + " due to NLP run taking longer than " + config.getTimeoutMillis() + " milliseconds");
+            throw new RuntimeException("NLP run timed out", e);
+        } catch (InterruptedException e) {
             future.cancel(true);
-            nlpExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
-        } catch (Throwable t) {
-            System.out.println("Skipping text " + text + " due to error. Note that this may be expected if NLP run " +
-                    "takes longer than a certain amount of time and it short circuits");
-            t.printStackTrace();
-            future.cancel(true);
-            nlpExecutor.shutdownNow();
-            throw new RuntimeException(t);
+        } catch (ExecutionException e) {
+            System.out.println("Skipping text of length " + text.length() + " due to error");
+            e.getCause().printStackTrace();
+            throw new RuntimeException(e.getCause());
         }
+    }
+
+    public int getPoolSize() {
+        return config.getPipelinePoolSize();
+    }
+
+    private Set<String> runPipeline(String text) throws AnalysisEngineProcessException, CASException {
+        CAS cas = casPool.getCas(0); // Pool size equals worker count, so a CAS is always available to a worker
         try {
-            JCas jcas = casRef.getJCas();
+            cas.setDocumentText(text);
+            aae.process(cas);
+            JCas jcas = cas.getJCas();
             Set<String> ret = new HashSet<>();
             for (ConceptMention cm : JCasUtil.select(jcas, ConceptMention.class)) {
                 ret.add(cm.getNormTarget());
             }
             return ret;
-        } catch (CASException e) {
-            throw new RuntimeException(e);
+        } finally {
+            casPool.releaseCas(cas); // Also resets the CAS for its next use
         }
     }
+
+    // A pipeline run that clears its pending watchdog timeout once it completes
+    private class TimedTask extends FutureTask<Set<String>> {
+        private volatile ScheduledFuture<?> timeout;
+
+        private TimedTask(String text) {
+            super(() -> runPipeline(text));
+        }
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    public void shutdown() {
+        watchdog.shutdownNow();
+        nlpExecutor.shutdownNow();
+        aae.destroy();
+    }
 }
@@ -0,0 +1,37 @@
+package org.ohnlp.cat.textres;
+
+import org.ohnlp.cat.api.criteria.ClinicalEntityType;
+
+/**
+ * A single text to be resolved to data source representations as part of a batch request
+ */
+public class TextResolutionRequest {
+    // Client-supplied key under which results for this text are returned. Defaults to the text itself if absent
+    private String key;
+    private String text;
+    private ClinicalEntityType type;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public ClinicalEntityType getType() {
+        return type;
+    }
+
+    public void setType(ClinicalEntityType type) {
+        this.type = type;
+    }
+}
@@ -4,41 +4,202 @@ import org.ohnlp.cat.ApplicationConfiguration;
 import org.ohnlp.cat.api.criteria.ClinicalEntityType;
 import org.ohnlp.cat.api.criteria.parser.DataSourceRepresentation;
 import org.ohnlp.cat.api.criteria.parser.UMLSDataSourceRepresentationResolver;
+import org.ohnlp.cat.cache.BoundedCache;
+import org.ohnlp.cat.cache.CacheStats;
+import org.ohnlp.cat.persistence.JDBCBackedStorage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Component
 public class TextResolutionService {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final ApplicationConfiguration config;
-    private final ThreadLocal<NLPPipeline> nlp;
-    // Use a fixed thread pool to ensure limited number of NLP Pipelines created from the ThreadLocal instead of one per request thread
-    private final ExecutorService nlpExecutor = Executors.newFixedThreadPool(2); // TODO make this configurable
+    // A single pooled pipeline shared across request threads, sized via cat.text-resolution
+    private final NLPPipeline nlp;
 
     private final UMLSDataSourceResolverProvider representationResolvers;
+    // Resolution of a CUI for a given entity type and set of data sources is static for a given vocabulary load
+    private final BoundedCache<RepresentationCacheKey, Set<DataSourceRepresentation>> representationCache;
+    // NLP output keyed by normalized text, so that repeated phrases do not require a full pipeline run
+    private final BoundedCache<String, Set<String>> textCache;
+    private final JDBCBackedStorage storage;
 
     @Autowired
-    public TextResolutionService(ApplicationConfiguration config, UMLSDataSourceResolverProvider representationResolvers) {
+    public TextResolutionService(ApplicationConfiguration config, UMLSDataSourceResolverProvider representationResolvers,
+                                 JDBCBackedStorage storage) {
         this.config = config;
-        this.nlp = ThreadLocal.withInitial(() -> new NLPPipeline(this.config));
+        this.nlp = new NLPPipeline(this.config);
         this.representationResolvers = representationResolvers;
+        this.storage = storage;
+        ApplicationConfiguration.CacheConfig cacheConfig = config.getTextResolution().getRepresentationCache();
+        this.representationCache = new BoundedCache<>(cacheConfig.getMaxEntries(), cacheConfig.getTtlSeconds() * 1000);
+        ApplicationConfiguration.CacheConfig textCacheConfig = config.getTextResolution().getTextCache();
+        this.textCache = new BoundedCache<>(textCacheConfig.getMaxEntries(), textCacheConfig.getTtlSeconds() * 1000,
+                textCacheConfig.getMaxBytes(), TextResolutionService::estimateTextCacheEntrySize);
     }
 
     private Set<String> parseToUMLS(String in) {
+        return textCache.get(normalizeText(in), normalized -> {
+            Set<String> ret = readPersistedTextResolution(normalized);
+            if (ret == null) {
+                ret = Collections.unmodifiableSet(nlp.process(in));
+                writePersistedTextResolution(normalized, ret);
+            }
+            return ret;
+        });
+    }
+
+    // Parses multiple texts concurrently across the pipeline pool, keyed by normalized text
+    private Map<String, Set<String>> parseToUMLS(Collection<String> in) {
+        Map<String, Set<String>> ret = new HashMap<>();
+        Map<String, String> toParse = new LinkedHashMap<>(); // normalized text -> original text
+        for (String text : in) {
+            String normalized = normalizeText(text);
+            if (ret.containsKey(normalized) || toParse.containsKey(normalized)) {
+                continue;
+            }
+            Set<String> cached = textCache.get(normalized);
+            if (cached == null) {
+                cached = readPersistedTextResolution(normalized);
+                if (cached != null) {
+                    textCache.put(normalized, cached);
+                }
+            }
+            if (cached != null) {
+                ret.put(normalized, cached);
+            } else {
+                toParse.put(normalized, text);
+            }
+        }
+        // Keep at most one text per pipeline in flight so that a single batch cannot fill the shared wait queue
+        Iterator<Map.Entry<String, String>> pending = toParse.entrySet().iterator();
+        Deque<Map.Entry<String, Future<Set<String>>>> inFlight = new ArrayDeque<>();
         try {
-            return nlpExecutor.submit(() -> nlp.get().process(in)).get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Failed to get UMLS CUIs", e);
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < nlp.getPoolSize()) {
+                    Map.Entry<String, String> next = pending.next();
+                    inFlight.add(Map.entry(next.getKey(), nlp.submit(next.getValue())));
+                }
+                Map.Entry<String, Future<Set<String>>> completed = inFlight.poll();
+                String normalized = completed.getKey();
+                Set<String> cuis = Collections.unmodifiableSet(nlp.await(completed.getValue(), toParse.get(normalized)));
+                textCache.put(normalized, cuis);
+                writePersistedTextResolution(normalized, cuis);
+                ret.put(normalized, cuis);
+            }
+        } catch (RuntimeException e) {
+            // Batch is failing, don't leave the remainder occupying the pipeline pool
+            inFlight.forEach(running -> running.getValue().cancel(true));
+            throw e;
         }
+        return ret;
+    }
+
+    private Set<String> readPersistedTextResolution(String normalized) {
+        if (!config.getTextResolution().isPersistTextCache()) {
+            return null;
+        }
+        try {
+            Set<String> ret = storage.getPersistedTextResolution(normalized);
+            return ret == null ? null : Collections.unmodifiableSet(ret);
+        } catch (IOException e) {
+            return null; // Persisted cache is best-effort, fall back to running NLP
+        }
+    }
+
+    private void writePersistedTextResolution(String normalized, Set<String> cuis) {
+        if (!config.getTextResolution().isPersistTextCache()) {
+            return;
+        }
+        try {
+            storage.writePersistedTextResolution(normalized, cuis);
+        } catch (IOException ignored) {
+            // Persisted cache is best-effort, result is still retained in memory
+        }
+    }
+
+    // Collapses whitespace and case so that trivially different phrasings share a cache entry
+    private static String normalizeText(String in) {
+        return WHITESPACE.matcher(in.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    // Rough heap footprint of a cached text -> CUI entry in bytes
+    private static long estimateTextCacheEntrySize(String text, Set<String> cuis) {
+        long ret = 64 + 2L * text.length();
+        for (String cui : cuis) {
+            ret += 48 + 2L * cui.length();
+        }
+        return ret;
     }
 
     public Collection<DataSourceRepresentation> getDataSourceRepresentations(String in, ClinicalEntityType type, List<String> dataSourceIDs) {
         Set<String> umls = parseToUMLS(in);
         HashSet<DataSourceRepresentation> ret = new HashSet<>();
+        Set<String> dataSources = new HashSet<>(dataSourceIDs);
+        for (String cui : umls) {
+            ret.addAll(representationCache.get(
+                    new RepresentationCacheKey(type, dataSources, cui),
+                    key -> resolveForUMLS(key.type, key.dataSourceIDs, key.cui)));
+        }
+        return ret;
+    }
+
+    /**
+     * Resolves multiple texts to data source representations. NLP is run in parallel across the pipeline pool, and
+     * each distinct (entity type, CUI) pair is resolved only once regardless of how many texts it appears in
+     *
+     * @param requests      The texts to resolve
+     * @param dataSourceIDs The data sources for which representations should be resolved
+     * @return Data source representations keyed by {@link TextResolutionRequest#getKey()}, or by text if no key was
+     * supplied
+     * @throws IllegalArgumentException If the batch is larger than the configured maximum or any request lacks a text
+     * or entity type
+     */
+    public Map<String, Collection<DataSourceRepresentation>> getDataSourceRepresentations(List<TextResolutionRequest> requests, List<String> dataSourceIDs) {
+        validateBatch(requests);
+        Map<String, Set<String>> cuisByText = parseToUMLS(requests.stream().map(TextResolutionRequest::getText).collect(Collectors.toList()));
+        Set<String> dataSources = new HashSet<>(dataSourceIDs);
+        Map<RepresentationCacheKey, Set<DataSourceRepresentation>> resolved = new HashMap<>();
+        Map<String, Collection<DataSourceRepresentation>> ret = new LinkedHashMap<>();
+        for (TextResolutionRequest request : requests) {
+            Set<DataSourceRepresentation> representations = new HashSet<>();
+            for (String cui : cuisByText.get(normalizeText(request.getText()))) {
+                representations.addAll(resolved.computeIfAbsent(
+                        new RepresentationCacheKey(request.getType(), dataSources, cui),
+                        key -> representationCache.get(key, k -> resolveForUMLS(k.type, k.dataSourceIDs, k.cui))));
+            }
+            ret.computeIfAbsent(request.getKey() == null ? request.getText() : request.getKey(), k -> new HashSet<>())
+                    .addAll(representations);
+        }
+        return ret;
+    }
+
+    private void validateBatch(List<TextResolutionRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("No text resolution requests supplied");
+        }
+        int maxBatchSize = config.getTextResolution().getMaxBatchSize();
+        if (maxBatchSize > 0 && requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + requests.size() + " texts exceeds the maximum batch size of " + maxBatchSize);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            TextResolutionRequest request = requests.get(i);
+            if (request == null || request.getText() == null || request.getType() == null) {
+                throw new IllegalArgumentException("Text resolution request " + i + " must supply both text and type");
+            }
+        }
+    }
+
+    private Set<DataSourceRepresentation> resolveForUMLS(ClinicalEntityType type, Set<String> dataSourceIDs, String cui) {
+        Set<DataSourceRepresentation> ret = new HashSet<>();
         // build a resolver to data sources map
         Map<UMLSDataSourceRepresentationResolver, Set<String>> resolversToDataSources = new HashMap<>();
         for (String dataSourceID : dataSourceIDs) {
@@ -47,12 +208,46 @@ public class TextResolutionService {
                 resolversToDataSources.computeIfAbsent(resolver, k -> new HashSet<>()).add(dataSourceID);
             });
         }
-        for (String cui : umls) {
-            resolversToDataSources.forEach((resolver, dataSources) -> {
-                ret.addAll(resolver.resolveForUMLS(type, dataSources, cui));
+        resolversToDataSources.forEach((resolver, dataSources) -> {
+            ret.addAll(resolver.resolveForUMLS(type, dataSources, cui));
+        });
+        return Collections.unmodifiableSet(ret);
+    }
 
-            });
-        }
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> ret = new LinkedHashMap<>();
+        ret.put("representations", representationCache.getStats());
+        ret.put("text", textCache.getStats());
         return ret;
     }
+
+    @PreDestroy
+    public void destroy() {
+        nlp.shutdown();
+    }
+
+    private static class RepresentationCacheKey {
+        private final ClinicalEntityType type;
+        private final Set<String> dataSourceIDs;
+        private final String cui;
+
+        private RepresentationCacheKey(ClinicalEntityType type, Set<String> dataSourceIDs, String cui) {
+            this.type = type;
+            this.dataSourceIDs = dataSourceIDs;
+            this.cui = cui;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RepresentationCacheKey that = (RepresentationCacheKey) o;
+            return type == that.type && dataSourceIDs.equals(that.dataSourceIDs) && cui.equals(that.cui);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, dataSourceIDs, cui);
+        }
+    }
 }
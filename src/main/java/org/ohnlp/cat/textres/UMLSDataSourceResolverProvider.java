@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,12 +21,17 @@ public class UMLSDataSourceResolverProvider {
     @Autowired
     public UMLSDataSourceResolverProvider(ApplicationConfiguration config) {
         this.config = config;
+        init(config);
     }
 
     private void init(ApplicationConfiguration config) {
-        this.dataSourceToRepresentationResolverID = new HashMap<>();
-        this.representationResolvers = new HashMap<>();
-        for (ApplicationConfiguration.RepresentationResolverConfig resolverConfig : config.getRepresentationResolvers()) {
+        Map<String, List<String>> dataSourceToRepresentationResolverID = new HashMap<>();
+        Map<String, UMLSDataSourceRepresentationResolver> representationResolvers = new HashMap<>();
+        List<ApplicationConfiguration.RepresentationResolverConfig> resolverConfigs =
+                config.getRepresentationResolvers() == null ? Collections.emptyList() : config.getRepresentationResolvers();
+        List<DataSourceInformation> dataSources =
+                config.getDataSources() == null ? Collections.emptyList() : config.getDataSources();
+        for (ApplicationConfiguration.RepresentationResolverConfig resolverConfig : resolverConfigs) {
             String id = resolverConfig.getId();
             String clazz = resolverConfig.getResolverClass();
             try {
@@ -37,9 +43,11 @@ public class UMLSDataSourceResolverProvider {
                 throw new IllegalArgumentException("Failed to instantiate representation resolver", e);
             }
         }
-        for (DataSourceInformation dataSource : config.getDataSources()) {
+        for (DataSourceInformation dataSource : dataSources) {
             dataSourceToRepresentationResolverID.put(dataSource.getBackendID(), dataSource.getTextResolvers());
         }
+        this.dataSourceToRepresentationResolverID = dataSourceToRepresentationResolverID;
+        this.representationResolvers = representationResolvers;
     }
 
     public Map<String, UMLSDataSourceRepresentationResolver> getResolversForDataSource(String datasource) {
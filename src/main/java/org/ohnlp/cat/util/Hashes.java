@@ -0,0 +1,30 @@
+package org.ohnlp.cat.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hashes used to key stored values, shared so that all stored hashes are computed identically
+ */
+public final class Hashes {
+    private Hashes() {
+    }
+
+    /**
+     * @param in The text to hash
+     * @return The lowercase hex SHA-256 digest of the UTF-8 encoding of the text
+     */
+    public static String sha256Hex(String in) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(in.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported by JVM", e);
+        }
+    }
+}
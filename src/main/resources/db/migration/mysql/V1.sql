@@ -0,0 +1,100 @@
+-- Baseline schema
+CREATE TABLE ${schema}.projects (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL,
+    project_name VARCHAR(255),
+    project_desc TEXT,
+    UNIQUE KEY uq_projects_project_uid (project_uid)
+);
+
+CREATE TABLE ${schema}.project_role_grants (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL,
+    user_uid VARCHAR(255) NOT NULL,
+    grant_type VARCHAR(32) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_archive (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_criterion (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL,
+    criterion LONGTEXT NOT NULL,
+    revision_date DATETIME(3) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_data_sources (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL,
+    data_sources LONGTEXT
+);
+
+CREATE TABLE ${schema}.AUDIT_LOG (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    project_uid VARCHAR(64) NOT NULL,
+    job_uid VARCHAR(64) NOT NULL,
+    criterion_uid BIGINT,
+    user_uid VARCHAR(255),
+    start_dtm DATETIME(3) NOT NULL,
+    job_status INT NOT NULL,
+    executor_job_uid VARCHAR(64),
+    archived INT NOT NULL DEFAULT 0,
+    UNIQUE KEY uq_audit_log_job_uid (job_uid)
+);
+
+CREATE TABLE ${schema}.COHORT (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    person_uid VARCHAR(255) NOT NULL,
+    score DOUBLE
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    cohort_row_uid BIGINT NOT NULL,
+    judger_uid VARCHAR(255) NOT NULL,
+    judgement VARCHAR(32)
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE_ADJUDICATIONS (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    cohort_row_uid BIGINT NOT NULL,
+    judgement VARCHAR(32)
+);
+
+CREATE TABLE ${schema}.EVIDENCE (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    node_uid VARCHAR(64) NOT NULL,
+    person_uid VARCHAR(255) NOT NULL,
+    evidence_uid VARCHAR(255) NOT NULL,
+    score DOUBLE
+);
+
+CREATE TABLE ${schema}.EVIDENCE_RELEVANCE (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    evidence_row_uid BIGINT NOT NULL,
+    judger_uid VARCHAR(255) NOT NULL,
+    judgement VARCHAR(32)
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    node_uid VARCHAR(64) NOT NULL,
+    person_uid VARCHAR(255) NOT NULL,
+    judger_uid VARCHAR(255) NOT NULL,
+    judgement VARCHAR(32),
+    user_comment TEXT
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE_ADJUDICATIONS (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    node_uid VARCHAR(64) NOT NULL,
+    person_uid VARCHAR(255) NOT NULL,
+    judgement VARCHAR(32)
+);
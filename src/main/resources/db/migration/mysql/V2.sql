@@ -0,0 +1,28 @@
+-- Text resolution cache, criterion subtree fingerprints, and cohort adjudication summary
+CREATE TABLE ${schema}.TEXT_RESOLUTION_CACHE (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    text_hash CHAR(64) NOT NULL,
+    normalized_text LONGTEXT NOT NULL,
+    cuis LONGTEXT
+);
+
+CREATE TABLE ${schema}.NODE_FINGERPRINT (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    node_uid VARCHAR(64) NOT NULL,
+    fingerprint CHAR(64) NOT NULL,
+    reused_job_uid VARCHAR(64),
+    reused_node_uid VARCHAR(64)
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY (
+    row_uid BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_uid VARCHAR(64) NOT NULL,
+    cohort_row_uid BIGINT NOT NULL,
+    judgement VARCHAR(32) NOT NULL,
+    judgement_count INT NOT NULL
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE (
+    job_uid VARCHAR(64) NOT NULL PRIMARY KEY
+);
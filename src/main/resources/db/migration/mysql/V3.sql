@@ -0,0 +1,32 @@
+-- Covering indexes for the queries issued by JDBCBackedStorage. Columns beyond the filter columns are included so
+-- that lookups can be answered from the index alone
+CREATE INDEX idx_project_role_grants_project_user ON ${schema}.project_role_grants (project_uid, user_uid, grant_type);
+CREATE INDEX idx_project_role_grants_user ON ${schema}.project_role_grants (user_uid, project_uid);
+CREATE INDEX idx_project_archive_project ON ${schema}.project_archive (project_uid);
+CREATE INDEX idx_project_criterion_project ON ${schema}.project_criterion (project_uid, revision_date);
+CREATE INDEX idx_project_data_sources_project ON ${schema}.project_data_sources (project_uid);
+
+CREATE INDEX idx_audit_log_project ON ${schema}.AUDIT_LOG (project_uid, start_dtm);
+CREATE INDEX idx_audit_log_project_status ON ${schema}.AUDIT_LOG (project_uid, job_status, start_dtm, job_uid);
+CREATE INDEX idx_audit_log_user ON ${schema}.AUDIT_LOG (user_uid, start_dtm);
+CREATE INDEX idx_audit_log_status ON ${schema}.AUDIT_LOG (job_status, executor_job_uid);
+
+CREATE INDEX idx_cohort_job_person ON ${schema}.COHORT (job_uid, person_uid, row_uid, score);
+CREATE INDEX idx_cohort_job_score ON ${schema}.COHORT (job_uid, score, row_uid, person_uid);
+CREATE INDEX idx_cohort_relevance_row_judger ON ${schema}.COHORT_RELEVANCE (cohort_row_uid, judger_uid, judgement);
+CREATE INDEX idx_cohort_relevance_adj_row ON ${schema}.COHORT_RELEVANCE_ADJUDICATIONS (cohort_row_uid, judgement);
+
+CREATE INDEX idx_evidence_job_node_person ON ${schema}.EVIDENCE (job_uid, node_uid, person_uid, score, evidence_uid);
+CREATE INDEX idx_evidence_job_person ON ${schema}.EVIDENCE (job_uid, person_uid, node_uid, evidence_uid);
+CREATE INDEX idx_evidence_job_evidence ON ${schema}.EVIDENCE (job_uid, evidence_uid, node_uid);
+CREATE INDEX idx_evidence_relevance_row_judger ON ${schema}.EVIDENCE_RELEVANCE (evidence_row_uid, judger_uid, judgement);
+
+CREATE INDEX idx_node_relevance_job_node_person_judger ON ${schema}.NODE_RELEVANCE (job_uid, node_uid, person_uid, judger_uid, judgement);
+CREATE INDEX idx_node_relevance_job_person ON ${schema}.NODE_RELEVANCE (job_uid, person_uid, judger_uid, node_uid, judgement);
+CREATE INDEX idx_node_relevance_adj_job_person ON ${schema}.NODE_RELEVANCE_ADJUDICATIONS (job_uid, person_uid, node_uid, judgement);
+
+CREATE INDEX idx_text_resolution_cache_hash ON ${schema}.TEXT_RESOLUTION_CACHE (text_hash);
+CREATE INDEX idx_node_fingerprint_fingerprint ON ${schema}.NODE_FINGERPRINT (fingerprint, job_uid, node_uid);
+CREATE INDEX idx_node_fingerprint_job ON ${schema}.NODE_FINGERPRINT (job_uid);
+CREATE UNIQUE INDEX idx_cohort_adj_summary_row ON ${schema}.COHORT_ADJUDICATION_SUMMARY (cohort_row_uid, judgement);
+CREATE INDEX idx_cohort_adj_summary_job ON ${schema}.COHORT_ADJUDICATION_SUMMARY (job_uid);
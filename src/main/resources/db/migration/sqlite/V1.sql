@@ -0,0 +1,100 @@
+-- Baseline schema
+CREATE TABLE ${schema}.projects (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL,
+    project_name TEXT,
+    project_desc TEXT,
+    CONSTRAINT uq_projects_project_uid UNIQUE (project_uid)
+);
+
+CREATE TABLE ${schema}.project_role_grants (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL,
+    user_uid TEXT NOT NULL,
+    grant_type TEXT NOT NULL
+);
+
+CREATE TABLE ${schema}.project_archive (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL
+);
+
+CREATE TABLE ${schema}.project_criterion (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL,
+    criterion TEXT NOT NULL,
+    revision_date TIMESTAMP NOT NULL
+);
+
+CREATE TABLE ${schema}.project_data_sources (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL,
+    data_sources TEXT
+);
+
+CREATE TABLE ${schema}.AUDIT_LOG (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    project_uid TEXT NOT NULL,
+    job_uid TEXT NOT NULL,
+    criterion_uid INTEGER,
+    user_uid TEXT,
+    start_dtm TIMESTAMP NOT NULL,
+    job_status INTEGER NOT NULL,
+    executor_job_uid TEXT,
+    archived INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT uq_audit_log_job_uid UNIQUE (job_uid)
+);
+
+CREATE TABLE ${schema}.COHORT (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    person_uid TEXT NOT NULL,
+    score REAL
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    cohort_row_uid INTEGER NOT NULL,
+    judger_uid TEXT NOT NULL,
+    judgement TEXT
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE_ADJUDICATIONS (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    cohort_row_uid INTEGER NOT NULL,
+    judgement TEXT
+);
+
+CREATE TABLE ${schema}.EVIDENCE (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    node_uid TEXT NOT NULL,
+    person_uid TEXT NOT NULL,
+    evidence_uid TEXT NOT NULL,
+    score REAL
+);
+
+CREATE TABLE ${schema}.EVIDENCE_RELEVANCE (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    evidence_row_uid INTEGER NOT NULL,
+    judger_uid TEXT NOT NULL,
+    judgement TEXT
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    node_uid TEXT NOT NULL,
+    person_uid TEXT NOT NULL,
+    judger_uid TEXT NOT NULL,
+    judgement TEXT,
+    user_comment TEXT
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE_ADJUDICATIONS (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    node_uid TEXT NOT NULL,
+    person_uid TEXT NOT NULL,
+    judgement TEXT
+);
@@ -0,0 +1,28 @@
+-- Text resolution cache, criterion subtree fingerprints, and cohort adjudication summary
+CREATE TABLE ${schema}.TEXT_RESOLUTION_CACHE (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    text_hash TEXT NOT NULL,
+    normalized_text TEXT NOT NULL,
+    cuis TEXT
+);
+
+CREATE TABLE ${schema}.NODE_FINGERPRINT (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    node_uid TEXT NOT NULL,
+    fingerprint TEXT NOT NULL,
+    reused_job_uid TEXT,
+    reused_node_uid TEXT
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY (
+    row_uid INTEGER PRIMARY KEY AUTOINCREMENT,
+    job_uid TEXT NOT NULL,
+    cohort_row_uid INTEGER NOT NULL,
+    judgement TEXT NOT NULL,
+    judgement_count INTEGER NOT NULL
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE (
+    job_uid TEXT NOT NULL PRIMARY KEY
+);
@@ -0,0 +1,32 @@
+-- Covering indexes for the queries issued by JDBCBackedStorage. Columns beyond the filter columns are included so
+-- that lookups can be answered from the index alone
+CREATE INDEX ${schema}.idx_project_role_grants_project_user ON project_role_grants (project_uid, user_uid, grant_type);
+CREATE INDEX ${schema}.idx_project_role_grants_user ON project_role_grants (user_uid, project_uid);
+CREATE INDEX ${schema}.idx_project_archive_project ON project_archive (project_uid);
+CREATE INDEX ${schema}.idx_project_criterion_project ON project_criterion (project_uid, revision_date);
+CREATE INDEX ${schema}.idx_project_data_sources_project ON project_data_sources (project_uid);
+
+CREATE INDEX ${schema}.idx_audit_log_project ON AUDIT_LOG (project_uid, start_dtm);
+CREATE INDEX ${schema}.idx_audit_log_project_status ON AUDIT_LOG (project_uid, job_status, start_dtm, job_uid);
+CREATE INDEX ${schema}.idx_audit_log_user ON AUDIT_LOG (user_uid, start_dtm);
+CREATE INDEX ${schema}.idx_audit_log_status ON AUDIT_LOG (job_status, executor_job_uid);
+
+CREATE INDEX ${schema}.idx_cohort_job_person ON COHORT (job_uid, person_uid, row_uid, score);
+CREATE INDEX ${schema}.idx_cohort_job_score ON COHORT (job_uid, score, row_uid, person_uid);
+CREATE INDEX ${schema}.idx_cohort_relevance_row_judger ON COHORT_RELEVANCE (cohort_row_uid, judger_uid, judgement);
+CREATE INDEX ${schema}.idx_cohort_relevance_adj_row ON COHORT_RELEVANCE_ADJUDICATIONS (cohort_row_uid, judgement);
+
+CREATE INDEX ${schema}.idx_evidence_job_node_person ON EVIDENCE (job_uid, node_uid, person_uid, score, evidence_uid);
+CREATE INDEX ${schema}.idx_evidence_job_person ON EVIDENCE (job_uid, person_uid, node_uid, evidence_uid);
+CREATE INDEX ${schema}.idx_evidence_job_evidence ON EVIDENCE (job_uid, evidence_uid, node_uid);
+CREATE INDEX ${schema}.idx_evidence_relevance_row_judger ON EVIDENCE_RELEVANCE (evidence_row_uid, judger_uid, judgement);
+
+CREATE INDEX ${schema}.idx_node_relevance_job_node_person_judger ON NODE_RELEVANCE (job_uid, node_uid, person_uid, judger_uid, judgement);
+CREATE INDEX ${schema}.idx_node_relevance_job_person ON NODE_RELEVANCE (job_uid, person_uid, judger_uid, node_uid, judgement);
+CREATE INDEX ${schema}.idx_node_relevance_adj_job_person ON NODE_RELEVANCE_ADJUDICATIONS (job_uid, person_uid, node_uid, judgement);
+
+CREATE INDEX ${schema}.idx_text_resolution_cache_hash ON TEXT_RESOLUTION_CACHE (text_hash);
+CREATE INDEX ${schema}.idx_node_fingerprint_fingerprint ON NODE_FINGERPRINT (fingerprint, job_uid, node_uid);
+CREATE INDEX ${schema}.idx_node_fingerprint_job ON NODE_FINGERPRINT (job_uid);
+CREATE UNIQUE INDEX ${schema}.idx_cohort_adj_summary_row ON COHORT_ADJUDICATION_SUMMARY (cohort_row_uid, judgement);
+CREATE INDEX ${schema}.idx_cohort_adj_summary_job ON COHORT_ADJUDICATION_SUMMARY (job_uid);
@@ -0,0 +1,6 @@
+-- Tracks applied schema migrations
+CREATE TABLE ${schema}.SCHEMA_VERSION (
+    version INTEGER NOT NULL PRIMARY KEY,
+    description TEXT,
+    applied_dtm TIMESTAMP NOT NULL
+);
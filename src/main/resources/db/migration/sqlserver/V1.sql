@@ -0,0 +1,100 @@
+-- Baseline schema
+CREATE TABLE ${schema}.projects (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL,
+    project_name NVARCHAR(255),
+    project_desc NVARCHAR(MAX),
+    CONSTRAINT uq_projects_project_uid UNIQUE (project_uid)
+);
+
+CREATE TABLE ${schema}.project_role_grants (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL,
+    user_uid NVARCHAR(255) NOT NULL,
+    grant_type NVARCHAR(32) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_archive (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_criterion (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL,
+    criterion NVARCHAR(MAX) NOT NULL,
+    revision_date DATETIME2(3) NOT NULL
+);
+
+CREATE TABLE ${schema}.project_data_sources (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL,
+    data_sources NVARCHAR(MAX)
+);
+
+CREATE TABLE ${schema}.AUDIT_LOG (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    project_uid NVARCHAR(64) NOT NULL,
+    job_uid NVARCHAR(64) NOT NULL,
+    criterion_uid BIGINT,
+    user_uid NVARCHAR(255),
+    start_dtm DATETIME2(3) NOT NULL,
+    job_status INT NOT NULL,
+    executor_job_uid NVARCHAR(64),
+    archived INT NOT NULL CONSTRAINT df_audit_log_archived DEFAULT 0,
+    CONSTRAINT uq_audit_log_job_uid UNIQUE (job_uid)
+);
+
+CREATE TABLE ${schema}.COHORT (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    person_uid NVARCHAR(255) NOT NULL,
+    score FLOAT
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    cohort_row_uid BIGINT NOT NULL,
+    judger_uid NVARCHAR(255) NOT NULL,
+    judgement NVARCHAR(32)
+);
+
+CREATE TABLE ${schema}.COHORT_RELEVANCE_ADJUDICATIONS (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    cohort_row_uid BIGINT NOT NULL,
+    judgement NVARCHAR(32)
+);
+
+CREATE TABLE ${schema}.EVIDENCE (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    node_uid NVARCHAR(64) NOT NULL,
+    person_uid NVARCHAR(255) NOT NULL,
+    evidence_uid NVARCHAR(255) NOT NULL,
+    score FLOAT
+);
+
+CREATE TABLE ${schema}.EVIDENCE_RELEVANCE (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    evidence_row_uid BIGINT NOT NULL,
+    judger_uid NVARCHAR(255) NOT NULL,
+    judgement NVARCHAR(32)
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    node_uid NVARCHAR(64) NOT NULL,
+    person_uid NVARCHAR(255) NOT NULL,
+    judger_uid NVARCHAR(255) NOT NULL,
+    judgement NVARCHAR(32),
+    user_comment NVARCHAR(MAX)
+);
+
+CREATE TABLE ${schema}.NODE_RELEVANCE_ADJUDICATIONS (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    node_uid NVARCHAR(64) NOT NULL,
+    person_uid NVARCHAR(255) NOT NULL,
+    judgement NVARCHAR(32)
+);
@@ -0,0 +1,28 @@
+-- Text resolution cache, criterion subtree fingerprints, and cohort adjudication summary
+CREATE TABLE ${schema}.TEXT_RESOLUTION_CACHE (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    text_hash NCHAR(64) NOT NULL,
+    normalized_text NVARCHAR(MAX) NOT NULL,
+    cuis NVARCHAR(MAX)
+);
+
+CREATE TABLE ${schema}.NODE_FINGERPRINT (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    node_uid NVARCHAR(64) NOT NULL,
+    fingerprint NCHAR(64) NOT NULL,
+    reused_job_uid NVARCHAR(64),
+    reused_node_uid NVARCHAR(64)
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY (
+    row_uid BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    job_uid NVARCHAR(64) NOT NULL,
+    cohort_row_uid BIGINT NOT NULL,
+    judgement NVARCHAR(32) NOT NULL,
+    judgement_count INT NOT NULL
+);
+
+CREATE TABLE ${schema}.COHORT_ADJUDICATION_SUMMARY_STATE (
+    job_uid NVARCHAR(64) NOT NULL PRIMARY KEY
+);
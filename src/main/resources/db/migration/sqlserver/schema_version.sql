@@ -0,0 +1,6 @@
+-- Tracks applied schema migrations
+CREATE TABLE ${schema}.SCHEMA_VERSION (
+    version INT NOT NULL PRIMARY KEY,
+    description NVARCHAR(255),
+    applied_dtm DATETIME2(3) NOT NULL
+);